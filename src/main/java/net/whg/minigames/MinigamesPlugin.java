@@ -8,6 +8,8 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 import net.whg.minigames.framework.MinigameCommand;
 import net.whg.minigames.framework.MinigameManager;
+import net.whg.minigames.framework.logging.FrameworkLogger;
+import net.whg.minigames.framework.logging.LogCategory;
 
 public class MinigamesPlugin extends JavaPlugin {
     private MinigameManager minigameManager;
@@ -15,6 +17,7 @@ public class MinigamesPlugin extends JavaPlugin {
     @Override
     public void onEnable() {
         updateDefaultConfig();
+        startLogger();
 
         minigameManager = new MinigameManager(this);
 
@@ -25,7 +28,9 @@ public class MinigamesPlugin extends JavaPlugin {
     @Override
     public void onDisable() {
         HandlerList.unregisterAll(this);
+        minigameManager.dispose();
         minigameManager = null;
+        FrameworkLogger.log.stop();
 
         Bukkit.getLogger().log(Level.INFO, "HG-Minigames has been disabled.");
     }
@@ -34,12 +39,43 @@ public class MinigamesPlugin extends JavaPlugin {
         var config = getConfig();
 
         config.addDefault("MinigameWorld", "world");
-        config.addDefault("ArenaDistance", 2500);
+        config.addDefault("ArenaLayoutOrigin", 2048);
+        config.addDefault("ArenaMargin", 32);
+        config.addDefault("ArenaLaneSize", 2048);
+        config.addDefault("SchematicCacheExpiry", 300);
+        config.addDefault("SchematicLoaderThreads", 2);
+        config.addDefault("ArenaJournalLimit", 100000);
+        config.addDefault("ArenaBuildBudget", 5.0);
+        config.addDefault("MaxConcurrentArenaBuilds", 2);
+        config.addDefault("MatchmakingInterval", 20);
+        config.addDefault("MaxPartySize", 8);
+        config.addDefault("LogQueueSize", 4096);
+        config.addDefault("MetricsFile", "metrics.prom");
+        config.addDefault("MetricsExportInterval", 200);
+
+        for (var category : LogCategory.values())
+            config.addDefault("LogLevels." + category.name(), Level.INFO.getName());
 
         config.options().copyDefaults(true);
         saveConfig();
     }
 
+    private void startLogger() {
+        var config = getConfig();
+
+        for (var category : LogCategory.values()) {
+            var level = config.getString("LogLevels." + category.name());
+
+            try {
+                FrameworkLogger.log.setLevel(category, Level.parse(level));
+            } catch (IllegalArgumentException e) {
+                getLogger().log(Level.WARNING, "Unknown log level " + level + " for " + category + "!");
+            }
+        }
+
+        FrameworkLogger.log.start(getLogger(), config.getInt("LogQueueSize"));
+    }
+
     /**
      * Gets the minigame manager associated with this plugin.
      * 
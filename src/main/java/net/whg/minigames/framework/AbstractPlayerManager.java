@@ -1,8 +1,13 @@
 package net.whg.minigames.framework;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
@@ -10,14 +15,15 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerQuitEvent;
 
-import net.whg.utils.SafeArrayList;
-
 /**
  * An abstract class for handling groupings of players that are within this
- * container.
+ * container. Players are indexed by UUID for constant time membership checks,
+ * and kept in an ordered list for iteration.
  */
 public abstract class AbstractPlayerManager implements Listener {
-    private final SafeArrayList<Player> players = new SafeArrayList<>();
+    private final Map<UUID, Player> members = new HashMap<>();
+    private final List<Player> players = new ArrayList<>();
+    private List<Player> snapshot = Collections.emptyList();
     protected final Random random = new Random();
 
     /**
@@ -26,7 +32,11 @@ public abstract class AbstractPlayerManager implements Listener {
      * @param player - The player to add.
      */
     protected void addPlayerToList(Player player) {
+        if (members.putIfAbsent(player.getUniqueId(), player) != null)
+            return;
+
         players.add(player);
+        snapshot = null;
     }
 
     /**
@@ -35,16 +45,37 @@ public abstract class AbstractPlayerManager implements Listener {
      * @param player - The player to remove.
      */
     protected void removePlayerFromList(Player player) {
-        players.remove(player);
+        var member = members.remove(player.getUniqueId());
+        if (member == null)
+            return;
+
+        players.remove(member);
+        snapshot = null;
     }
 
     /**
-     * Gets a read-only list of all players currently within this container.
+     * Gets a read-only snapshot of all players currently within this container.
+     * The snapshot does not change as players join or leave, so it is safe to
+     * iterate while adding or removing players. The same snapshot is returned
+     * until the player list changes.
      * 
      * @return A list of players.
      */
     public List<Player> getPlayers() {
-        return players.asReadOnly();
+        if (snapshot == null)
+            snapshot = List.copyOf(players);
+
+        return snapshot;
+    }
+
+    /**
+     * Checks whether the given player is currently within this container.
+     * 
+     * @param player - The player.
+     * @return True if the player is in this container. False otherwise.
+     */
+    public boolean contains(Player player) {
+        return members.containsKey(player.getUniqueId());
     }
 
     /**
@@ -82,15 +113,39 @@ public abstract class AbstractPlayerManager implements Listener {
      * @param location - The target location.
      */
     public void teleportAll(Location location) {
-        for (var player : players)
+        for (var player : getPlayers())
             player.teleport(location);
     }
 
+    /**
+     * Teleports all players within this container to the target location. The
+     * target chunk is loaded asynchronously if it is not already loaded, rather
+     * than blocking the server thread.
+     * 
+     * @param location - The target location.
+     * @return A future that completes once every player has been teleported. The
+     *         future completes exceptionally if any teleport failed or was
+     *         cancelled.
+     */
+    public CompletableFuture<Void> teleportAllAsync(Location location) {
+        var teleports = new ArrayList<CompletableFuture<Boolean>>();
+        for (var player : getPlayers())
+            teleports.add(player.teleportAsync(location));
+
+        return CompletableFuture.allOf(teleports.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+            for (var teleport : teleports) {
+                if (!teleport.join())
+                    throw new IllegalStateException("Failed to teleport a player to " + location + "!");
+            }
+        });
+    }
+
     /**
      * Shuffles the ordering of players within this player list.
      */
     public void shufflePlayerOrder() {
         Collections.shuffle(players);
+        snapshot = null;
     }
 
     /**
@@ -1,10 +1,6 @@
 package net.whg.minigames.framework;
 
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.block.BlockBreakEvent;
-import org.bukkit.event.entity.EntityDropItemEvent;
-import org.bukkit.event.entity.FoodLevelChangeEvent;
 
 import net.whg.minigames.framework.teams.Team;
 
@@ -13,35 +9,26 @@ import net.whg.minigames.framework.teams.Team;
  * events that are commonly disabled.
  */
 public abstract class DefaultMinigame extends Minigame {
-    private boolean disableFoodLevel = true;
-    private boolean disableBlockBreak = true;
-    private boolean disableItemDrop = true;
     private Team defaultTeam;
 
     /**
-     * Sets whether or not food level changing should be disabled. This event is
+     * Creates a new default minigame. Hunger, block breaking, and item drops are
      * disabled by default.
-     * 
-     * @param disabled - True if the event should be disabled.
      */
-    protected void setFoodLevelChangeDisabled(boolean disabled) {
-        disableFoodLevel = disabled;
+    protected DefaultMinigame() {
+        setRuleAllowed(MinigameRule.HUNGER, false);
+        setRuleAllowed(MinigameRule.BLOCK_BREAK, false);
+        setRuleAllowed(MinigameRule.ITEM_DROP, false);
     }
 
     /**
-     * When a player's food level changes, this event listener cancels the event.
+     * Sets whether or not food level changing should be disabled. This event is
+     * disabled by default.
      * 
-     * @param e - The event.
+     * @param disabled - True if the event should be disabled.
      */
-    @EventHandler
-    public void onFoodLevelChange(FoodLevelChangeEvent e) {
-        if (!disableFoodLevel)
-            return;
-
-        if (!getPlayers().contains(e.getEntity()))
-            return;
-
-        e.setCancelled(true);
+    protected void setFoodLevelChangeDisabled(boolean disabled) {
+        setRuleAllowed(MinigameRule.HUNGER, !disabled);
     }
 
     /**
@@ -51,24 +38,7 @@ public abstract class DefaultMinigame extends Minigame {
      * @param disabled - True if the event should be disabled.
      */
     protected void setBlockBreakDisabled(boolean disabled) {
-        disableBlockBreak = disabled;
-    }
-
-    /**
-     * When a player from this minigame breaks a block, this event listener cancels
-     * the event.
-     * 
-     * @param e - The event.
-     */
-    @EventHandler
-    public void onBlockBreak(BlockBreakEvent e) {
-        if (!disableBlockBreak)
-            return;
-
-        if (!getPlayers().contains(e.getPlayer()))
-            return;
-
-        e.setCancelled(true);
+        setRuleAllowed(MinigameRule.BLOCK_BREAK, !disabled);
     }
 
     /**
@@ -78,24 +48,7 @@ public abstract class DefaultMinigame extends Minigame {
      * @param disabled - True if the event should be disabled.
      */
     protected void setItemDropDisabled(boolean disabled) {
-        disableItemDrop = disabled;
-    }
-
-    /**
-     * When a player from this minigame drops an item, this event listener cancels
-     * the event.
-     * 
-     * @param e - The event.
-     */
-    @EventHandler
-    public void onItemDrop(EntityDropItemEvent e) {
-        if (!disableItemDrop)
-            return;
-
-        if (!getPlayers().contains(e.getEntity()))
-            return;
-
-        e.setCancelled(true);
+        setRuleAllowed(MinigameRule.ITEM_DROP, !disabled);
     }
 
     @Override
@@ -0,0 +1,64 @@
+package net.whg.minigames.framework;
+
+/**
+ * Describes how long a virtual lobby waits for more players before starting a
+ * new minigame instance. Once the minimum number of players are waiting, a
+ * countdown begins. The instance is started when the countdown runs out, or as
+ * soon as the lobby has enough players to fill the instance completely. Waiting
+ * for full instances results in fewer, larger games, each needing one arena,
+ * rather than many games that only just meet the minimum player count.
+ */
+public class FillPolicy {
+    /**
+     * A fill policy that starts a new instance as soon as the minimum number of
+     * players are waiting.
+     */
+    public static final FillPolicy IMMEDIATE = new FillPolicy(0, false);
+
+    /**
+     * Creates a fill policy that waits for the lobby to have enough players to
+     * fill an instance, for up to the given number of seconds.
+     *
+     * @param seconds     - The maximum number of seconds to wait after the minimum
+     *                    player count has been reached.
+     * @param resetOnJoin - Whether the countdown restarts each time a new player
+     *                    joins the lobby.
+     * @return The fill policy.
+     */
+    public static FillPolicy waitForMax(int seconds, boolean resetOnJoin) {
+        return new FillPolicy(Math.max(seconds, 0) * 1000L, resetOnJoin);
+    }
+
+    private final long maxWaitMillis;
+    private final boolean resetOnJoin;
+
+    /**
+     * Creates a new fill policy.
+     *
+     * @param maxWaitMillis - The maximum number of milliseconds to wait.
+     * @param resetOnJoin   - Whether the countdown restarts on join.
+     */
+    private FillPolicy(long maxWaitMillis, boolean resetOnJoin) {
+        this.maxWaitMillis = maxWaitMillis;
+        this.resetOnJoin = resetOnJoin;
+    }
+
+    /**
+     * Gets the maximum amount of time to wait for a full instance after the
+     * minimum player count has been reached.
+     *
+     * @return The wait time, in milliseconds.
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * Gets whether the countdown restarts each time a new player joins the lobby.
+     *
+     * @return True if the countdown restarts on join. False otherwise.
+     */
+    public boolean isResetOnJoin() {
+        return resetOnJoin;
+    }
+}
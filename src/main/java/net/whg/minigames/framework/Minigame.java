@@ -1,16 +1,15 @@
 package net.whg.minigames.framework;
 
-import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.entity.ArmorStand;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
-import org.joml.Vector3i;
 
 import net.whg.minigames.framework.arena.Arena;
 import net.whg.minigames.framework.events.ArenaCompletedEvent;
@@ -19,32 +18,27 @@ import net.whg.minigames.framework.events.LeaveMinigameEvent;
 import net.whg.minigames.framework.events.MinigameEndEvent;
 import net.whg.minigames.framework.events.MinigameReadyEvent;
 import net.whg.minigames.framework.exceptions.PlayerAlreadyInMinigameException;
+import net.whg.minigames.framework.logging.FrameworkLogger;
+import net.whg.minigames.framework.logging.LogCategory;
 import net.whg.minigames.framework.teams.TeamList;
-import net.whg.utils.WraithLib;
 import net.whg.utils.inventory.InventorySnapshot;
 
 /**
  * A minigame is a collection of event handlers that are enabled or disabled for
  * players depending on whether they are currently inside that minigame instance
  * or not.
+ * <p>
+ * Event handlers are called through the {@link MinigameEventRouter}. An event
+ * involving a player who is part of a minigame instance is only delivered to
+ * that instance and its teams. Every other event, including events about
+ * players outside of any minigame and lifecycle events such as
+ * {@link MinigameEndEvent}, is delivered to every active instance, so handlers
+ * for those events should check which minigame or arena the event refers to.
  */
 public abstract class Minigame extends AbstractPlayerManager {
-    /**
-     * Checks if the given location is within the axis-aligned world bounds
-     * specified.
-     * 
-     * @param location - The location
-     * @param min      - The minimum world pos.
-     * @param max      - The maximum world pos.
-     * @return True if the location is in the given bounds. False otherwise.
-     */
-    private static boolean isInBounds(Location location, Vector3i min, Vector3i max) {
-        return location.getX() >= min.x && location.getX() < max.x && location.getY() >= min.y
-                && location.getY() < max.y && location.getZ() >= min.z && location.getZ() < max.z;
-    }
-
     private final Map<Player, InventorySnapshot> inventorySnapshots = new HashMap<>();
     private final TeamList teamList = new TeamList();
+    private final Set<MinigameRule> deniedRules = EnumSet.noneOf(MinigameRule.class);
     private MinigameManager manager;
     private MinigameID id;
     private Arena arena;
@@ -65,7 +59,9 @@ public abstract class Minigame extends AbstractPlayerManager {
         this.arena = arena;
         this.instanced = instanced;
 
-        WraithLib.log.logInfo("Minigame %s has been initialized.", id.instanceName());
+        manager.getRuleDispatcher().hook(deniedRules);
+
+        FrameworkLogger.log.info(LogCategory.MINIGAME, "Minigame %s has been initialized.", id.instanceName());
     }
 
     /**
@@ -83,13 +79,18 @@ public abstract class Minigame extends AbstractPlayerManager {
         if (currentMinigame != null)
             throw new PlayerAlreadyInMinigameException(player, this, currentMinigame);
 
+        var start = System.nanoTime();
         addPlayerToList(player);
+        manager.setSessionMinigame(player, this);
 
+        manager.getInventoryJournal().recordSnapshot(player);
         var invSnapshot = InventorySnapshot.createSnapshotAndClear(player);
         inventorySnapshots.put(player, invSnapshot);
 
         var event = new JoinMinigameEvent(player, this);
         Bukkit.getPluginManager().callEvent(event);
+
+        manager.getMetrics().getJoin().recordSince(start);
     }
 
     /**
@@ -102,22 +103,24 @@ public abstract class Minigame extends AbstractPlayerManager {
      */
     @Override
     public void removePlayer(Player player) {
-        if (!getPlayers().contains(player))
+        if (!contains(player))
             return;
 
         removePlayerFromList(player);
+        manager.setSessionMinigame(player, null);
 
         var invSnapshot = inventorySnapshots.get(player);
         InventorySnapshot.apply(player, invSnapshot);
         inventorySnapshots.remove(player);
+        manager.getInventoryJournal().recordApplied(player);
 
-        for (var team : teamList.getTeams())
-            team.removePlayer(player);
+        teamList.removePlayer(player);
 
         var event = new LeaveMinigameEvent(player, this);
         Bukkit.getPluginManager().callEvent(event);
 
-        WraithLib.log.logInfo("%s has left the minigame %s.", player.getName(), id.instanceName());
+        FrameworkLogger.log.info(LogCategory.MINIGAME, "%s has left the minigame %s.", player.getName(),
+                id.instanceName());
 
         if (isEmptyPlayerList() && isInstanced()) {
             manager.endMinigame(this);
@@ -125,7 +128,7 @@ public abstract class Minigame extends AbstractPlayerManager {
             var endEvent = new MinigameEndEvent(this);
             Bukkit.getPluginManager().callEvent(endEvent);
 
-            WraithLib.log.logInfo("Minigame %s has ended.", id.instanceName());
+            FrameworkLogger.log.info(LogCategory.MINIGAME, "Minigame %s has ended.", id.instanceName());
         }
     }
 
@@ -157,45 +160,63 @@ public abstract class Minigame extends AbstractPlayerManager {
     }
 
     /**
-     * Searches through all entities to locate placeholder entities with the given
-     * name. A placeholder entity is represented as an armor stand with a matching
-     * name tag. These placeholder entities are removed and their locations are
-     * returned.
+     * Gets the locations of all placeholders with the given name within this
+     * minigame's arena, and removes those placeholder entities. A placeholder is
+     * represented in the schematic as an armor stand with a matching name tag.
+     * Placeholder positions are indexed once per schematic when the first arena
+     * is built, so no search of the world is needed.
      * 
      * @param placeholder - The placeholder string to search for.
      * @return A list of locations that were found.
      */
     protected List<Location> findPlaceholders(String placeholder) {
-        var list = new ArrayList<Location>();
+        var list = getArena().removePlaceholders(placeholder);
 
-        var location = getArena().getLocation();
-        var schematic = getArena().getSchematic();
-        var world = location.getWorld();
-        var offset = new Vector3i(location.getBlockX(), location.getBlockY(), location.getBlockZ());
-        offset.sub(schematic.getOrigin());
+        FrameworkLogger.log.info(LogCategory.ARENA, "Loaded %s placeholders for %s in the minigame %s.", list.size(),
+                placeholder, id.instanceName());
 
-        var min = schematic.getMinimumPoint().add(offset, new Vector3i());
-        var max = schematic.getMaximumPoint().add(offset, new Vector3i());
-
-        for (var entity : world.getEntities()) {
-            if (!(entity instanceof ArmorStand))
-                continue;
-
-            var eLoc = entity.getLocation();
-            if (!isInBounds(eLoc, min, max))
-                continue;
-
-            if (!entity.getName().equals(placeholder))
-                continue;
+        return list;
+    }
 
-            list.add(eLoc);
-            entity.remove();
+    /**
+     * Sets whether the given rule is allowed for players in this minigame. All
+     * rules are allowed by default.
+     * 
+     * @param rule    - The rule.
+     * @param allowed - True if the action should be allowed, false if the event
+     *                should be cancelled.
+     */
+    protected void setRuleAllowed(MinigameRule rule, boolean allowed) {
+        if (allowed) {
+            deniedRules.remove(rule);
+            return;
         }
 
-        WraithLib.log.logInfo("Loaded %s placeholders for %s in the minigame %s.", list.size(), placeholder,
-                id.instanceName());
+        deniedRules.add(rule);
+        if (manager != null)
+            manager.getRuleDispatcher().hook(rule);
+    }
 
-        return list;
+    /**
+     * Gets whether the given rule is allowed for players in this minigame.
+     * 
+     * @param rule - The rule.
+     * @return True if the action is allowed. False if it is cancelled.
+     */
+    public boolean isRuleAllowed(MinigameRule rule) {
+        return !deniedRules.contains(rule);
+    }
+
+    /**
+     * Gets whether players from the virtual lobby may currently join this
+     * instance to fill free slots. This is only checked if the minigame type
+     * allows backfill. Minigames may override this to close backfill once a match
+     * has progressed too far for new players to join.
+     * 
+     * @return True if this instance is open for backfill. False otherwise.
+     */
+    public boolean isBackfillOpen() {
+        return isInstanced();
     }
 
     /**
@@ -212,6 +233,14 @@ public abstract class Minigame extends AbstractPlayerManager {
         if (e.getArena() != getArena())
             return;
 
+        fireReadyEvent();
+    }
+
+    /**
+     * Calls the MinigameReadyEvent for this minigame, indicating that the arena
+     * has been built and the minigame may begin.
+     */
+    void fireReadyEvent() {
         var event = new MinigameReadyEvent(this);
         Bukkit.getPluginManager().callEvent(event);
     }
@@ -6,6 +6,9 @@ public class MinigameCommand extends CommandHandler {
     public MinigameCommand(MinigameManager manager) {
         actions.add(new MinigameJoinAction(manager));
         actions.add(new MinigameLeaveAction(manager));
+        actions.add(new MinigameQuickPlayAction(manager));
+        actions.add(new MinigamePartyAction(manager));
+        actions.add(new MinigameStatsAction(manager));
     }
 
     @Override
@@ -0,0 +1,269 @@
+package net.whg.minigames.framework;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityEvent;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.plugin.Plugin;
+
+import net.whg.minigames.framework.events.MinigameEndEvent;
+import net.whg.minigames.framework.events.MinigameStartEvent;
+
+/**
+ * Routes Bukkit events to the minigame instances that own them. Rather than
+ * registering every minigame and team as its own listener, the router registers
+ * a single executor per event type and priority, finds the minigame that owns
+ * each event through the player involved, and calls only the event handlers of
+ * that instance and its teams. All other events, including events about players
+ * who are not in any minigame and the minigame lifecycle events such as
+ * {@link MinigameStartEvent} and {@link MinigameEndEvent}, are delivered to
+ * every registered instance that handles them, so instances can still react to
+ * each other.
+ */
+public class MinigameEventRouter implements Listener {
+    private static final RoutedHandler[] NO_HANDLERS = new RoutedHandler[0];
+    private static final Minigame[] NO_MINIGAMES = new Minigame[0];
+
+    private final Map<Class<?>, Map<HandlerKey, RoutedHandler[]>> handlerCache = new HashMap<>();
+    private final Set<HandlerKey> hookedHandlers = new HashSet<>();
+    private final Set<Minigame> minigames = new LinkedHashSet<>();
+    private final MinigameManager manager;
+    private final Plugin plugin;
+    private Minigame[] broadcastTargets = NO_MINIGAMES;
+
+    /**
+     * Creates a new event router.
+     *
+     * @param manager - The minigame manager used to look up player sessions.
+     * @param plugin  - The plugin to register event executors under.
+     */
+    MinigameEventRouter(MinigameManager manager, Plugin plugin) {
+        this.manager = manager;
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts routing events to the given minigame instance.
+     *
+     * @param minigame - The minigame instance.
+     */
+    void register(Minigame minigame) {
+        if (!minigames.add(minigame))
+            return;
+
+        broadcastTargets = minigames.toArray(NO_MINIGAMES);
+        hookListenerType(minigame.getClass());
+    }
+
+    /**
+     * Stops routing events to the given minigame instance.
+     *
+     * @param minigame - The minigame instance.
+     */
+    void unregister(Minigame minigame) {
+        if (!minigames.remove(minigame))
+            return;
+
+        broadcastTargets = minigames.toArray(NO_MINIGAMES);
+    }
+
+    /**
+     * Ensures that all event types handled by the given listener type are being
+     * received by this router. This must be called for every listener type that
+     * events are routed to, such as teams, before they can receive events.
+     * Executors are only registered with Bukkit once per event type and priority,
+     * no matter how many instances are active.
+     *
+     * @param type - The listener type.
+     */
+    public void hookListenerType(Class<? extends Listener> type) {
+        for (var key : getHandlers(type).keySet()) {
+            if (!hookedHandlers.add(key))
+                continue;
+
+            Bukkit.getPluginManager().registerEvent(key.eventClass(), this, key.priority(),
+                    (listener, event) -> dispatch(key, event), plugin, false);
+        }
+    }
+
+    /**
+     * Dispatches an event to the event handlers of the minigame that owns it, or
+     * to every minigame if the event has no owner.
+     *
+     * @param key   - The event type and priority being dispatched.
+     * @param event - The event.
+     */
+    private void dispatch(HandlerKey key, Event event) {
+        if (!key.eventClass().isInstance(event))
+            return;
+
+        var owner = findOwningMinigame(event);
+        if (owner != null) {
+            if (minigames.contains(owner))
+                deliver(owner, key, event);
+
+            return;
+        }
+
+        for (var minigame : broadcastTargets)
+            deliver(minigame, key, event);
+    }
+
+    /**
+     * Delivers an event to a minigame instance and all of its teams.
+     *
+     * @param minigame - The minigame.
+     * @param key      - The event type and priority being dispatched.
+     * @param event    - The event.
+     */
+    private void deliver(Minigame minigame, HandlerKey key, Event event) {
+        invoke(minigame, key, event);
+
+        for (var team : minigame.getTeamList().getTeams())
+            invoke(team, key, event);
+    }
+
+    /**
+     * Calls all event handlers of the given listener that match the event type and
+     * priority.
+     *
+     * @param listener - The listener.
+     * @param key      - The event type and priority being dispatched.
+     * @param event    - The event.
+     */
+    private void invoke(Listener listener, HandlerKey key, Event event) {
+        var handlers = getHandlers(listener.getClass()).getOrDefault(key, NO_HANDLERS);
+        for (var handler : handlers) {
+            if (handler.ignoreCancelled() && event instanceof Cancellable cancellable && cancellable.isCancelled())
+                continue;
+
+            try {
+                handler.method().invoke(listener, event);
+            } catch (InvocationTargetException e) {
+                Bukkit.getLogger().log(Level.SEVERE, e.getCause(), () -> "Could not pass event "
+                        + event.getEventName() + " to " + listener.getClass().getName() + "!");
+            } catch (IllegalAccessException e) {
+                Bukkit.getLogger().log(Level.SEVERE, e, () -> "Could not access event handler "
+                        + handler.method().getName() + " in " + listener.getClass().getName() + "!");
+            }
+        }
+    }
+
+    /**
+     * Finds the minigame instance that owns the given event, which is the
+     * minigame that the involved player is part of. Minigame lifecycle events are
+     * not owned by any instance, since other instances may need to react to them.
+     *
+     * @param event - The event.
+     * @return The owning minigame, or null if the event has no owner.
+     */
+    private Minigame findOwningMinigame(Event event) {
+        var player = findPlayer(event);
+        if (player == null)
+            return null;
+
+        return manager.getCurrentMinigame(player);
+    }
+
+    /**
+     * Finds the player that is responsible for the given event.
+     *
+     * @param event - The event.
+     * @return The player, or null if the event does not involve a player.
+     */
+    private static Player findPlayer(Event event) {
+        if (event instanceof PlayerEvent e)
+            return e.getPlayer();
+
+        if (event instanceof BlockBreakEvent e)
+            return e.getPlayer();
+
+        if (event instanceof BlockPlaceEvent e)
+            return e.getPlayer();
+
+        if (event instanceof EntityEvent e && e.getEntity() instanceof Player player)
+            return player;
+
+        if (event instanceof EntityDamageByEntityEvent e && e.getDamager() instanceof Player player)
+            return player;
+
+        return null;
+    }
+
+    /**
+     * Gets all event handlers declared by the given listener type, grouped by
+     * event type and priority. These are scanned once per listener type and
+     * cached.
+     *
+     * @param type - The listener type.
+     * @return The event handlers.
+     */
+    private Map<HandlerKey, RoutedHandler[]> getHandlers(Class<?> type) {
+        return handlerCache.computeIfAbsent(type, MinigameEventRouter::scanHandlers);
+    }
+
+    /**
+     * Scans the given listener type for event handler methods, in the same manner
+     * as Bukkit does when registering a listener.
+     *
+     * @param type - The listener type.
+     * @return The event handlers, grouped by event type and priority.
+     */
+    private static Map<HandlerKey, RoutedHandler[]> scanHandlers(Class<?> type) {
+        var methods = new HashSet<Method>(Arrays.asList(type.getMethods()));
+        methods.addAll(Arrays.asList(type.getDeclaredMethods()));
+
+        var grouped = new HashMap<HandlerKey, List<RoutedHandler>>();
+        for (var method : methods) {
+            var annotation = method.getAnnotation(EventHandler.class);
+            if (annotation == null || method.isBridge() || method.isSynthetic())
+                continue;
+
+            var params = method.getParameterTypes();
+            if (params.length != 1 || !Event.class.isAssignableFrom(params[0]))
+                continue;
+
+            method.setAccessible(true);
+
+            var key = new HandlerKey(params[0].asSubclass(Event.class), annotation.priority());
+            grouped.computeIfAbsent(key, k -> new ArrayList<>())
+                    .add(new RoutedHandler(method, annotation.ignoreCancelled()));
+        }
+
+        var handlers = new HashMap<HandlerKey, RoutedHandler[]>();
+        grouped.forEach((key, list) -> handlers.put(key, list.toArray(NO_HANDLERS)));
+        return handlers;
+    }
+
+    /**
+     * An event type and priority pair that a single executor is registered for.
+     */
+    private record HandlerKey(Class<? extends Event> eventClass, EventPriority priority) {
+    }
+
+    /**
+     * A single event handler method within a listener type.
+     */
+    private record RoutedHandler(Method method, boolean ignoreCancelled) {
+    }
+}
@@ -43,4 +43,41 @@ public interface MinigameFactory {
      * @return The maximum number of players allowed into this minigame.
      */
     int getMaxPlayers();
+
+    /**
+     * Gets the number of arenas that should be kept pre-built for this minigame,
+     * including the arenas of running instances. When a new instance is started,
+     * it takes an arena from this pool, allowing it to start without waiting for
+     * the arena to be built. Once the instance ends, its arena is reset and
+     * returned to the pool. This only applies to instanced minigames.
+     * 
+     * @return The warm pool size, or 0 to build arenas only when needed. Even
+     *         then, the arena of the last finished instance is kept for reuse.
+     */
+    default int getWarmPoolSize() {
+        return 0;
+    }
+
+    /**
+     * Gets the policy that decides how long the virtual lobby for this minigame
+     * waits for more players before starting a new instance. This only applies to
+     * instanced minigames.
+     * 
+     * @return The fill policy.
+     */
+    default FillPolicy getFillPolicy() {
+        return FillPolicy.IMMEDIATE;
+    }
+
+    /**
+     * Gets whether players waiting in the virtual lobby may be added to running
+     * instances of this minigame that have free slots, before a new instance is
+     * started. Each instance may still refuse backfill through
+     * {@link Minigame#isBackfillOpen()}. This only applies to instanced minigames.
+     * 
+     * @return True if running instances may be backfilled. False otherwise.
+     */
+    default boolean allowsBackfill() {
+        return false;
+    }
 }
@@ -5,6 +5,7 @@ import org.bukkit.entity.Player;
 
 import net.whg.minigames.framework.exceptions.PlayerAlreadyInMinigameException;
 import net.whg.utils.cmdformat.CommandException;
+import net.whg.utils.cmdformat.CommandStateException;
 import net.whg.utils.cmdformat.Subcommand;
 import net.whg.utils.cmdformat.UnknownArgumentException;
 
@@ -26,6 +27,13 @@ public class MinigameJoinAction extends Subcommand {
         var lobbyGame = args.length == 2 ? getLobbyGame(args[1]) : null;
 
         if (minigame.isInstanced()) {
+            var party = minigameManager.getPartyManager().getParty(player);
+            if (party != null && !party.isLeader(player))
+                throw new CommandStateException("Only the party leader can join minigames!");
+
+            if (party != null && party.size() > minigame.getMaxPlayers())
+                throw new CommandStateException("Your party is too large to play " + args[0] + "!");
+
             minigameManager.removeFromAllMinigames(player);
 
             if (lobbyGame != null) {
@@ -1,29 +1,49 @@
 package net.whg.minigames.framework;
 
-import java.io.IOException;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.logging.Level;
+import java.util.Map;
+import java.util.UUID;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.event.HandlerList;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
 import org.bukkit.plugin.Plugin;
 
 import net.whg.minigames.framework.arena.ArenaManager;
+import net.whg.minigames.framework.arena.ArenaState;
+import net.whg.minigames.framework.events.ArenaCompletedEvent;
 import net.whg.minigames.framework.events.JoinLobbyEvent;
 import net.whg.minigames.framework.events.MinigameStartEvent;
+import net.whg.minigames.framework.inventory.InventoryJournal;
+import net.whg.minigames.framework.logging.FrameworkLogger;
+import net.whg.minigames.framework.logging.LogCategory;
+import net.whg.minigames.framework.metrics.MinigameMetrics;
+import net.whg.minigames.framework.party.PartyManager;
+import net.whg.minigames.framework.teams.TeamJoinEvent;
+import net.whg.minigames.framework.teams.TeamLeaveEvent;
+import net.whg.minigames.framework.teams.TeamList;
 
 /**
  * A manager object for handling active minigames, factory objects, and active
  * players within those minigames.
  */
-public class MinigameManager {
+public class MinigameManager implements Listener {
     private final List<MinigameFactory> minigameTypes = new ArrayList<>();
     private final List<Minigame> activeMinigames = new ArrayList<>();
     private final List<VirtualLobby> lobbies = new ArrayList<>();
+    private final Map<UUID, PlayerSession> sessions = new HashMap<>();
     private final Plugin plugin;
     private final ArenaManager arenaDistributor;
+    private final MinigameEventRouter eventRouter;
+    private final MinigameRuleDispatcher ruleDispatcher;
+    private final InventoryJournal inventoryJournal;
+    private final PartyManager partyManager;
+    private final MinigameMetrics metrics;
+    private int lastMatchmakingPlacements;
 
     /**
      * Creates a new minigame manager.
@@ -33,6 +53,20 @@ public class MinigameManager {
     public MinigameManager(Plugin plugin) {
         this.plugin = plugin;
         arenaDistributor = new ArenaManager(plugin);
+        eventRouter = new MinigameEventRouter(this, plugin);
+        ruleDispatcher = new MinigameRuleDispatcher(this, plugin);
+        inventoryJournal = new InventoryJournal(plugin, new File(plugin.getDataFolder(), "inventory-journal.dat"));
+        partyManager = new PartyManager(plugin, plugin.getConfig().getInt("MaxPartySize"));
+
+        var metricsFile = plugin.getConfig().getString("MetricsFile", "");
+        metrics = new MinigameMetrics(plugin,
+                metricsFile.isEmpty() ? null : new File(plugin.getDataFolder(), metricsFile));
+        metrics.start(Math.max(plugin.getConfig().getLong("MetricsExportInterval"), 1L));
+
+        var matchmakingInterval = Math.max(plugin.getConfig().getLong("MatchmakingInterval"), 1L);
+        Bukkit.getScheduler().runTaskTimer(plugin, this::runMatchmaking, matchmakingInterval, matchmakingInterval);
+
+        Bukkit.getPluginManager().registerEvents(this, plugin);
     }
 
     /**
@@ -45,10 +79,19 @@ public class MinigameManager {
     public void registerMinigameType(MinigameFactory factory) {
         minigameTypes.add(factory);
 
+        var name = factory.getName();
+        metrics.registerMinigameType(name, () -> countInstances(name), () -> countPlayers(name), () -> {
+            var lobby = getLobby(name);
+            return lobby == null ? 0 : lobby.getSize();
+        });
+
         if (factory.isInstanced()) {
             var lobby = new VirtualLobby(this, factory.getName());
             Bukkit.getPluginManager().registerEvents(lobby, plugin);
             lobbies.add(lobby);
+
+            var typeID = minigameTypes.indexOf(factory);
+            arenaDistributor.createWarmPool(factory.getName(), typeID, factory.getWarmPoolSize());
         } else {
             initializeMinigame(factory.getName());
         }
@@ -66,21 +109,25 @@ public class MinigameManager {
         if (factory == null)
             return null;
 
-        var id = generateID(name);
-        var arena = arenaDistributor.getArena(id);
+        var typeID = minigameTypes.indexOf(factory);
+        var arena = arenaDistributor.takeArena(name, typeID);
+        var id = arena.getID();
 
         var minigame = factory.createInstance();
         minigame.init(this, id, arena, factory.isInstanced());
         activeMinigames.add(minigame);
-
-        try {
-            arena.buildArena();
-        } catch (IOException e) {
-            Bukkit.getLogger().log(Level.SEVERE, e, () -> "Failed to build arena for " + name + "!");
+        eventRouter.register(minigame);
+        metrics.getMinigameType(name).instancesStarted().increment();
+
+        // Arenas taken from a warm pool are already built, so no completion event
+        // will follow. Wait until the lobby has populated the instance first.
+        if (arena.getState() == ArenaState.ACTIVE) {
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (activeMinigames.contains(minigame))
+                    minigame.fireReadyEvent();
+            });
         }
 
-        Bukkit.getPluginManager().registerEvents(minigame, plugin);
-
         var event = new MinigameStartEvent(minigame);
         Bukkit.getPluginManager().callEvent(event);
 
@@ -88,46 +135,107 @@ public class MinigameManager {
     }
 
     /**
-     * Generates an available MinigameID object for the given minigame type.
+     * A package-level function for marking a minigame instance as completed.
      * 
-     * @param minigameType - The name of the minigame type.
-     * @return A new MinigameID.
+     * @param minigame - The minigame instance.
      */
-    private MinigameID generateID(String minigameType) {
-        var typeID = minigameTypes.indexOf(getMinigameFactory(minigameType));
-        var instanceID = 0;
+    void endMinigame(Minigame minigame) {
+        var start = System.nanoTime();
 
-        while (findMinigame(typeID, instanceID) != null)
-            instanceID++;
+        activeMinigames.remove(minigame);
+        eventRouter.unregister(minigame);
+
+        for (var player : minigame.getPlayers()) {
+            var session = sessions.get(player.getUniqueId());
+            if (session != null && session.getMinigame() == minigame) {
+                session.setMinigame(null);
+                session.setTeam(null);
+                releaseSession(session);
+            }
+        }
 
-        return new MinigameID(minigameType, typeID, instanceID);
+        minigame.getTeamList().dispose();
+        arenaDistributor.releaseArena(minigame.getArena());
+
+        metrics.getTeardown().recordSince(start);
     }
 
     /**
-     * Finds the active minigame with the given type ID and instance ID.
+     * Gets the session for the given player. This contains the minigame, lobby,
+     * and team the player is currently part of.
      * 
-     * @param typeID     - The type ID.
-     * @param instanceID - The instance ID.
-     * @return The active minigame, or null if the minigame could not be found.
+     * @param player - The player.
+     * @return The player's session, or null if the player is not currently part of
+     *         any minigames or lobbies.
      */
-    private Minigame findMinigame(int typeID, int instanceID) {
-        for (var minigame : activeMinigames) {
-            var id = minigame.getID();
-            if (id.getTypeID() == typeID && id.getInstanceID() == instanceID)
-                return minigame;
+    public PlayerSession getSession(Player player) {
+        return sessions.get(player.getUniqueId());
+    }
+
+    /**
+     * Gets the session for the given player, creating a new one if the player does
+     * not currently have one.
+     * 
+     * @param player - The player.
+     * @return The player's session.
+     */
+    private PlayerSession getOrCreateSession(Player player) {
+        return sessions.computeIfAbsent(player.getUniqueId(), PlayerSession::new);
+    }
+
+    /**
+     * Discards the given session if it is no longer tracking anything.
+     * 
+     * @param session - The session.
+     */
+    private void releaseSession(PlayerSession session) {
+        if (session.isEmpty())
+            sessions.remove(session.getUUID());
+    }
+
+    /**
+     * A package-level function for updating the minigame a player is currently
+     * part of within their session.
+     * 
+     * @param player   - The player.
+     * @param minigame - The minigame the player has joined, or null if the player
+     *                 has left their minigame.
+     */
+    void setSessionMinigame(Player player, Minigame minigame) {
+        if (minigame != null) {
+            getOrCreateSession(player).setMinigame(minigame);
+            return;
         }
-        return null;
+
+        var session = sessions.get(player.getUniqueId());
+        if (session == null)
+            return;
+
+        session.setMinigame(null);
+        session.setTeam(null);
+        releaseSession(session);
     }
 
     /**
-     * A package-level function for marking a minigame instance as completed.
+     * A package-level function for updating the lobby a player is currently
+     * waiting in within their session.
      * 
-     * @param minigame - The minigame instance.
+     * @param player - The player.
+     * @param lobby  - The lobby the player has joined, or null if the player has
+     *               left their lobby.
      */
-    void endMinigame(Minigame minigame) {
-        activeMinigames.remove(minigame);
-        HandlerList.unregisterAll(minigame);
-        minigame.getTeamList().dispose();
+    void setSessionLobby(Player player, VirtualLobby lobby) {
+        if (lobby != null) {
+            getOrCreateSession(player).setLobby(lobby);
+            return;
+        }
+
+        var session = sessions.get(player.getUniqueId());
+        if (session == null)
+            return;
+
+        session.setLobby(null);
+        releaseSession(session);
     }
 
     /**
@@ -138,12 +246,25 @@ public class MinigameManager {
      *         part of any minigames.
      */
     public Minigame getCurrentMinigame(Player player) {
-        for (var minigame : activeMinigames) {
-            if (minigame.getPlayers().contains(player))
-                return minigame;
-        }
+        var session = sessions.get(player.getUniqueId());
+        if (session == null)
+            return null;
 
-        return null;
+        return session.getMinigame();
+    }
+
+    /**
+     * Gets the lobby that the given player is currently waiting in.
+     * 
+     * @param player - The player.
+     * @return The lobby, or null if the player is not currently in a lobby.
+     */
+    public VirtualLobby getCurrentLobby(Player player) {
+        var session = sessions.get(player.getUniqueId());
+        if (session == null)
+            return null;
+
+        return session.getLobby();
     }
 
     /**
@@ -179,7 +300,10 @@ public class MinigameManager {
 
     /**
      * Adds a player to the given lobby. This will remove the player from all other
-     * lobbies.
+     * lobbies. If the player is in a party, every member of the party is moved
+     * into the lobby together, leaving any instanced minigame they are currently
+     * in. Members may stay in a non-instanced minigame, such as a lobby game,
+     * while they wait. If the join is cancelled for any member, no one is moved.
      * 
      * @param player   - The player to add.
      * @param minigame - The name of the minigame.
@@ -189,15 +313,169 @@ public class MinigameManager {
         if (lobby == null)
             throw new IllegalArgumentException("Minigame: '" + minigame + "' does not have a lobby or does not exist!");
 
-        var event = new JoinLobbyEvent(player, minigame);
-        Bukkit.getPluginManager().callEvent(event);
-        if (event.isCancelled())
-            return;
+        var group = partyManager.getGroup(player);
+        for (var member : group) {
+            var event = new JoinLobbyEvent(member, minigame);
+            Bukkit.getPluginManager().callEvent(event);
+            if (event.isCancelled())
+                return;
+        }
+
+        for (var member : group) {
+            var currentMinigame = getCurrentMinigame(member);
+            if (currentMinigame != null && currentMinigame.isInstanced())
+                currentMinigame.removePlayer(member);
+
+            var currentLobby = getCurrentLobby(member);
+            if (currentLobby != null && currentLobby != lobby)
+                currentLobby.removePlayerFromLobby(member);
+
+            lobby.addPlayerToLobby(member);
+        }
+    }
+
+    /**
+     * Runs a single matchmaking pass, starting as many full minigame instances as
+     * the players waiting in each lobby allow.
+     */
+    private void runMatchmaking() {
+        var placed = 0;
+        for (var lobby : lobbies)
+            placed += lobby.matchmake();
+
+        lastMatchmakingPlacements = placed;
+        metrics.getMatchmakingPlacements().add(placed);
+
+        if (placed > 0)
+            FrameworkLogger.log.info(LogCategory.MATCHMAKING, "Matchmaking placed %s players into minigame instances.",
+                    placed);
+    }
+
+    /**
+     * Gets the number of players that were placed into minigame instances by the
+     * most recent matchmaking pass.
+     * 
+     * @return The number of players placed.
+     */
+    public int getLastMatchmakingPlacements() {
+        return lastMatchmakingPlacements;
+    }
+
+    /**
+     * Adds the given player to whichever instanced minigame lobby will place them
+     * into a game the soonest. Lobbies of minigames whose running instances have
+     * enough free backfill slots for everyone already waiting, as well as the
+     * player's party, are chosen first, since the player is added to one of those
+     * instances on the next matchmaking pass. Otherwise the lobby needing the fewest additional
+     * players to reach its minimum is chosen, preferring the larger lobby when
+     * tied. The player is only removed from their current minigame or lobby once
+     * a lobby has been found, and is left where they are otherwise.
+     * 
+     * @param player - The player.
+     * @return The lobby the player was added to, or null if there are no instanced
+     *         minigames with room for the player's party.
+     */
+    public VirtualLobby quickPlay(Player player) {
+        VirtualLobby best = null;
+        var bestMissing = Integer.MAX_VALUE;
+
+        var groupSize = partyManager.getGroup(player).size();
+
+        for (var lobby : lobbies) {
+            var factory = getMinigameFactory(lobby.getMinigame());
+            if (factory.getMaxPlayers() < groupSize)
+                continue;
+
+            var missing = countBackfillSlots(factory) >= lobby.getSize() + groupSize ? -1
+                    : Math.max(factory.getMinPlayers() - lobby.getSize(), 0);
+
+            if (missing < bestMissing || (missing == bestMissing && lobby.getSize() > best.getSize())) {
+                best = lobby;
+                bestMissing = missing;
+            }
+        }
+
+        if (best == null)
+            return null;
+
+        // The lobby itself is switched by addToLobby, so that a player who is
+        // already waiting in the chosen lobby keeps their place in the queue.
+        var currentMinigame = getCurrentMinigame(player);
+        if (currentMinigame != null)
+            currentMinigame.removePlayer(player);
+
+        addToLobby(player, best.getMinigame());
+        return best;
+    }
+
+    /**
+     * Counts the free slots in all running instances of the given minigame type
+     * that are open for backfill.
+     * 
+     * @param factory - The minigame type.
+     * @return The number of free backfill slots.
+     */
+    private int countBackfillSlots(MinigameFactory factory) {
+        var slots = 0;
+        for (var minigame : getBackfillTargets(factory))
+            slots += factory.getMaxPlayers() - minigame.getPlayerCount();
+
+        return slots;
+    }
+
+    /**
+     * Gets all running instances of the given minigame type that have free slots
+     * and are open for backfill, oldest first.
+     * 
+     * @param factory - The minigame type.
+     * @return A list of minigame instances that players may be added to.
+     */
+    List<Minigame> getBackfillTargets(MinigameFactory factory) {
+        var targets = new ArrayList<Minigame>();
+        if (!factory.allowsBackfill())
+            return targets;
+
+        for (var minigame : activeMinigames) {
+            if (!minigame.getID().getMinigameType().equals(factory.getName()))
+                continue;
+
+            if (minigame.getPlayerCount() < factory.getMaxPlayers() && minigame.isBackfillOpen())
+                targets.add(minigame);
+        }
+
+        return targets;
+    }
+
+    /**
+     * Counts the running instances of the given minigame type.
+     * 
+     * @param name - The name of the minigame.
+     * @return The number of instances.
+     */
+    private int countInstances(String name) {
+        var count = 0;
+        for (var minigame : activeMinigames) {
+            if (minigame.getID().getMinigameType().equals(name))
+                count++;
+        }
 
-        for (var lob : lobbies)
-            lob.removePlayerFromLobby(player);
+        return count;
+    }
 
-        lobby.addPlayerToLobby(player);
+    /**
+     * Counts the players in running instances of the given minigame type.
+     * 
+     * @param name - The name of the minigame.
+     * @return The number of players.
+     */
+    private int countPlayers(String name) {
+        var count = 0;
+        for (var minigame : activeMinigames) {
+            if (minigame.getID().getMinigameType().equals(name))
+                count += minigame.getPlayerCount();
+        }
+
+        return count;
     }
 
     /**
@@ -224,13 +502,13 @@ public class MinigameManager {
      * @param player - The player.
      */
     public void removeFromAllMinigames(Player player) {
-        for (var minigame : activeMinigames) {
+        var minigame = getCurrentMinigame(player);
+        if (minigame != null)
             minigame.removePlayer(player);
-        }
 
-        for (var lobby : lobbies) {
+        var lobby = getCurrentLobby(player);
+        if (lobby != null)
             lobby.removePlayerFromLobby(player);
-        }
     }
 
     /**
@@ -241,4 +519,103 @@ public class MinigameManager {
     public ArenaManager getArenaDistributor() {
         return arenaDistributor;
     }
+
+    /**
+     * Disposes this minigame manager and stops any background work it owns. This
+     * should be called when the plugin is disabled.
+     */
+    public void dispose() {
+        arenaDistributor.dispose();
+        inventoryJournal.dispose();
+        metrics.dispose();
+    }
+
+    /**
+     * Gets the dispatcher that enforces the rules of active minigames.
+     * 
+     * @return The rule dispatcher.
+     */
+    MinigameRuleDispatcher getRuleDispatcher() {
+        return ruleDispatcher;
+    }
+
+    /**
+     * Gets the party manager that keeps track of which players queue together.
+     * 
+     * @return The party manager.
+     */
+    public PartyManager getPartyManager() {
+        return partyManager;
+    }
+
+    /**
+     * Gets the journal that keeps the inventories players had before joining a
+     * minigame safe on disk.
+     * 
+     * @return The inventory journal.
+     */
+    public InventoryJournal getInventoryJournal() {
+        return inventoryJournal;
+    }
+
+    /**
+     * Gets the metrics collected for minigames, lobbies, and arenas.
+     * 
+     * @return The minigame metrics.
+     */
+    public MinigameMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the event router that delivers events to active minigame instances.
+     * 
+     * @return The event router.
+     */
+    public MinigameEventRouter getEventRouter() {
+        return eventRouter;
+    }
+
+    /**
+     * Records how long an arena took to build once it has been completed.
+     * 
+     * @param e - The event.
+     */
+    @EventHandler
+    public void onArenaCompleted(ArenaCompletedEvent e) {
+        metrics.getArenaBuild().record(e.getArena().getLastBuildTime());
+    }
+
+    /**
+     * Keeps the team within a player's session up to date as they join teams. A
+     * player in multiple teams keeps the team they joined first, the same as
+     * {@link TeamList#getTeam(Player)}.
+     * 
+     * @param e - The event.
+     */
+    @EventHandler
+    public void onTeamJoin(TeamJoinEvent e) {
+        var session = sessions.get(e.getPlayer().getUniqueId());
+        if (session == null || session.getMinigame() == null || session.getTeam() != null)
+            return;
+
+        session.setTeam(e.getTeam());
+    }
+
+    /**
+     * Keeps the team within a player's session up to date as they leave teams. If
+     * the player is still part of other teams, the one they joined first is used
+     * instead.
+     * 
+     * @param e - The event.
+     */
+    @EventHandler
+    public void onTeamLeave(TeamLeaveEvent e) {
+        var session = sessions.get(e.getPlayer().getUniqueId());
+        if (session == null || session.getTeam() != e.getTeam())
+            return;
+
+        var minigame = session.getMinigame();
+        session.setTeam(minigame == null ? null : minigame.getTeamList().getTeam(e.getPlayer()));
+    }
 }
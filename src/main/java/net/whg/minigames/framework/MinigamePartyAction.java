@@ -0,0 +1,109 @@
+package net.whg.minigames.framework;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import net.whg.utils.WraithLib;
+import net.whg.utils.cmdformat.CommandException;
+import net.whg.utils.cmdformat.CommandStateException;
+import net.whg.utils.cmdformat.Subcommand;
+import net.whg.utils.cmdformat.UnknownArgumentException;
+
+public class MinigamePartyAction extends Subcommand {
+    private final MinigameManager minigameManager;
+
+    public MinigamePartyAction(MinigameManager minigameManager) {
+        this.minigameManager = minigameManager;
+    }
+
+    @Override
+    public void execute(CommandSender sender, String[] args) throws CommandException {
+        var player = (Player) sender;
+        var partyManager = minigameManager.getPartyManager();
+
+        if (args.length == 0)
+            throw new UnknownArgumentException("Usage: /mg party %s", getUsage());
+
+        switch (args[0]) {
+            case "invite" -> {
+                var target = getPlayer(args);
+                if (target == player)
+                    throw new CommandStateException("You cannot invite yourself!");
+
+                try {
+                    partyManager.invite(player, target);
+                } catch (IllegalStateException e) {
+                    throw new CommandStateException(e.getMessage());
+                }
+
+                WraithLib.log.sendMessage(player, "Invited %s to your party.", target.getName());
+                WraithLib.log.sendMessage(target, "%s has invited you to their party. Use /mg party accept %s to join.",
+                        player.getName(), player.getName());
+            }
+
+            case "accept" -> {
+                var leader = getPlayer(args);
+
+                try {
+                    partyManager.accept(player, leader);
+                } catch (IllegalStateException e) {
+                    throw new CommandStateException(e.getMessage());
+                }
+            }
+
+            case "leave" -> {
+                if (partyManager.getParty(player) == null)
+                    throw new CommandStateException("You are not in a party!");
+
+                partyManager.leave(player);
+                WraithLib.log.sendMessage(player, "You have left the party.");
+            }
+
+            case "list" -> {
+                var party = partyManager.getParty(player);
+                if (party == null)
+                    throw new CommandStateException("You are not in a party!");
+
+                var names = new StringBuilder();
+                for (var member : party.getMembers()) {
+                    if (names.length() > 0)
+                        names.append(", ");
+
+                    names.append(member.getName());
+                }
+
+                WraithLib.log.sendMessage(player, "Party (%s/%s): %s", party.size(), partyManager.getMaxPartySize(),
+                        names);
+            }
+
+            default -> throw new UnknownArgumentException("Unknown party action '%s'!", args[0]);
+        }
+    }
+
+    private Player getPlayer(String[] args) throws UnknownArgumentException {
+        if (args.length < 2)
+            throw new UnknownArgumentException("You must specify a player!");
+
+        var player = Bukkit.getPlayerExact(args[1]);
+        if (player == null)
+            throw new UnknownArgumentException("Player '%s' is not online!", args[1]);
+
+        return player;
+    }
+
+    @Override
+    public boolean requiresNoConsole() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "party";
+    }
+
+    @Override
+    public String getUsage() {
+        return "<invite|accept|leave|list> [player]";
+    }
+}
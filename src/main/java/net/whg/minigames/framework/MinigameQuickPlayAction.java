@@ -0,0 +1,43 @@
+package net.whg.minigames.framework;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import net.whg.utils.cmdformat.CommandException;
+import net.whg.utils.cmdformat.CommandStateException;
+import net.whg.utils.cmdformat.Subcommand;
+
+public class MinigameQuickPlayAction extends Subcommand {
+    private final MinigameManager minigameManager;
+
+    public MinigameQuickPlayAction(MinigameManager minigameManager) {
+        this.minigameManager = minigameManager;
+    }
+
+    @Override
+    public void execute(CommandSender sender, String[] args) throws CommandException {
+        var player = (Player) sender;
+
+        var party = minigameManager.getPartyManager().getParty(player);
+        if (party != null && !party.isLeader(player))
+            throw new CommandStateException("Only the party leader can join minigames!");
+
+        if (minigameManager.quickPlay(player) == null)
+            throw new CommandStateException("There are no minigames to play right now!");
+    }
+
+    @Override
+    public String getName() {
+        return "quickplay";
+    }
+
+    @Override
+    public String getUsage() {
+        return "";
+    }
+
+    @Override
+    public boolean requiresNoConsole() {
+        return true;
+    }
+}
@@ -0,0 +1,138 @@
+package net.whg.minigames.framework;
+
+import java.util.function.Function;
+
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Projectile;
+import org.bukkit.event.Event;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.FoodLevelChangeEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+
+/**
+ * A standard player action that minigames commonly allow or deny. Each rule
+ * knows which event it applies to and which player the event belongs to, so
+ * that a single dispatcher per rule can cancel the event for every minigame
+ * that denies it.
+ */
+public enum MinigameRule {
+    /**
+     * Players breaking blocks.
+     */
+    BLOCK_BREAK(BlockBreakEvent.class, e -> ((BlockBreakEvent) e).getPlayer()),
+
+    /**
+     * Players placing blocks.
+     */
+    BLOCK_PLACE(BlockPlaceEvent.class, e -> ((BlockPlaceEvent) e).getPlayer()),
+
+    /**
+     * Players damaging other players, either directly or with a projectile. The
+     * rule of the minigame the damaged player is in is used.
+     */
+    PVP(EntityDamageByEntityEvent.class, MinigameRule::findPvpVictim),
+
+    /**
+     * Players taking fall damage.
+     */
+    FALL_DAMAGE(EntityDamageEvent.class, MinigameRule::findFallingPlayer),
+
+    /**
+     * Players picking up items.
+     */
+    ITEM_PICKUP(EntityPickupItemEvent.class, e -> asPlayer(((EntityPickupItemEvent) e).getEntity())),
+
+    /**
+     * Players dropping items.
+     */
+    ITEM_DROP(PlayerDropItemEvent.class, e -> ((PlayerDropItemEvent) e).getPlayer()),
+
+    /**
+     * Players' food levels changing.
+     */
+    HUNGER(FoodLevelChangeEvent.class, e -> asPlayer(((FoodLevelChangeEvent) e).getEntity()));
+
+    private final Class<? extends Event> eventClass;
+    private final Function<Event, Player> playerLookup;
+
+    /**
+     * Creates a new minigame rule.
+     *
+     * @param eventClass   - The event this rule applies to.
+     * @param playerLookup - A function returning the player an event belongs to,
+     *                     or null if the rule does not apply to the event.
+     */
+    MinigameRule(Class<? extends Event> eventClass, Function<Event, Player> playerLookup) {
+        this.eventClass = eventClass;
+        this.playerLookup = playerLookup;
+    }
+
+    /**
+     * Gets the event this rule applies to.
+     *
+     * @return The event class.
+     */
+    public Class<? extends Event> getEventClass() {
+        return eventClass;
+    }
+
+    /**
+     * Finds the player whose minigame decides whether the given event is allowed.
+     *
+     * @param event - The event.
+     * @return The player, or null if this rule does not apply to the event.
+     */
+    public Player findPlayer(Event event) {
+        if (!eventClass.isInstance(event))
+            return null;
+
+        return playerLookup.apply(event);
+    }
+
+    /**
+     * Casts the given entity to a player.
+     *
+     * @param entity - The entity.
+     * @return The player, or null if the entity is not a player.
+     */
+    private static Player asPlayer(Object entity) {
+        return entity instanceof Player player ? player : null;
+    }
+
+    /**
+     * Finds the damaged player of a damage event caused by another player.
+     *
+     * @param event - The damage event.
+     * @return The damaged player, or null if the damage was not player versus
+     *         player.
+     */
+    private static Player findPvpVictim(Event event) {
+        var e = (EntityDamageByEntityEvent) event;
+        if (!(e.getEntity() instanceof Player victim))
+            return null;
+
+        var damager = e.getDamager();
+        if (damager instanceof Projectile projectile && projectile.getShooter() instanceof Player)
+            return victim;
+
+        return damager instanceof Player ? victim : null;
+    }
+
+    /**
+     * Finds the player taking damage in a fall damage event.
+     *
+     * @param event - The damage event.
+     * @return The player, or null if the damage was not fall damage to a player.
+     */
+    private static Player findFallingPlayer(Event event) {
+        var e = (EntityDamageEvent) event;
+        if (e.getCause() != EntityDamageEvent.DamageCause.FALL)
+            return null;
+
+        return asPlayer(e.getEntity());
+    }
+}
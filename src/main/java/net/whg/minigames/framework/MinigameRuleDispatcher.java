@@ -0,0 +1,76 @@
+package net.whg.minigames.framework;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Enforces minigame rules. A single event executor is registered per rule, and
+ * only once some minigame has denied that rule, so rules that no minigame uses
+ * cost nothing. Each executor finds the minigame of the player involved through
+ * their session and cancels the event if that minigame denies the rule.
+ */
+class MinigameRuleDispatcher implements Listener {
+    private final Set<MinigameRule> hookedRules = EnumSet.noneOf(MinigameRule.class);
+    private final MinigameManager manager;
+    private final Plugin plugin;
+
+    /**
+     * Creates a new rule dispatcher.
+     *
+     * @param manager - The minigame manager used to look up player sessions.
+     * @param plugin  - The plugin to register event executors under.
+     */
+    MinigameRuleDispatcher(MinigameManager manager, Plugin plugin) {
+        this.manager = manager;
+        this.plugin = plugin;
+    }
+
+    /**
+     * Ensures that the given rules are being enforced.
+     *
+     * @param rules - The rules.
+     */
+    void hook(Set<MinigameRule> rules) {
+        for (var rule : rules)
+            hook(rule);
+    }
+
+    /**
+     * Ensures that the given rule is being enforced.
+     *
+     * @param rule - The rule.
+     */
+    void hook(MinigameRule rule) {
+        if (!hookedRules.add(rule))
+            return;
+
+        Bukkit.getPluginManager().registerEvent(rule.getEventClass(), this, EventPriority.NORMAL,
+                (listener, event) -> dispatch(rule, event), plugin, true);
+    }
+
+    /**
+     * Cancels the given event if the minigame of the player involved denies the
+     * rule.
+     *
+     * @param rule  - The rule.
+     * @param event - The event.
+     */
+    private void dispatch(MinigameRule rule, Event event) {
+        var player = rule.findPlayer(event);
+        if (player == null)
+            return;
+
+        var minigame = manager.getCurrentMinigame(player);
+        if (minigame == null || minigame.isRuleAllowed(rule))
+            return;
+
+        ((Cancellable) event).setCancelled(true);
+    }
+}
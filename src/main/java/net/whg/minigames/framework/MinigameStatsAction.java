@@ -0,0 +1,52 @@
+package net.whg.minigames.framework;
+
+import org.bukkit.command.CommandSender;
+
+import net.whg.minigames.framework.metrics.LatencyHistogram;
+import net.whg.utils.WraithLib;
+import net.whg.utils.cmdformat.CommandException;
+import net.whg.utils.cmdformat.CommandStateException;
+import net.whg.utils.cmdformat.Subcommand;
+
+public class MinigameStatsAction extends Subcommand {
+    private final MinigameManager minigameManager;
+
+    public MinigameStatsAction(MinigameManager minigameManager) {
+        this.minigameManager = minigameManager;
+    }
+
+    @Override
+    public void execute(CommandSender sender, String[] args) throws CommandException {
+        if (!sender.hasPermission("minigames.stats"))
+            throw new CommandStateException("You do not have permission to view minigame stats!");
+
+        var metrics = minigameManager.getMetrics();
+        metrics.sampleGauges();
+
+        for (var type : metrics.getMinigameTypes()) {
+            WraithLib.log.sendMessage(sender, "%s: %s instances, %s players, %s waiting, %s started.", type.name(),
+                    type.activeInstances().get(), type.activePlayers().get(), type.lobbyPlayers().get(),
+                    type.instancesStarted().get());
+        }
+
+        sendLatency(sender, "Lobby wait", metrics.getLobbyWait());
+        sendLatency(sender, "Arena build", metrics.getArenaBuild());
+        sendLatency(sender, "Join", metrics.getJoin());
+        sendLatency(sender, "Teardown", metrics.getTeardown());
+    }
+
+    private void sendLatency(CommandSender sender, String name, LatencyHistogram histogram) {
+        WraithLib.log.sendMessage(sender, "%s: p50 %ss, p99 %ss (%s samples).", name,
+                histogram.getPercentileSeconds(0.5), histogram.getPercentileSeconds(0.99), histogram.getCount());
+    }
+
+    @Override
+    public String getName() {
+        return "stats";
+    }
+
+    @Override
+    public String getUsage() {
+        return "";
+    }
+}
@@ -0,0 +1,118 @@
+package net.whg.minigames.framework;
+
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+
+import net.whg.minigames.framework.teams.Team;
+import net.whg.minigames.framework.teams.TeamList;
+
+/**
+ * Tracks which minigame, lobby, and team a single player is currently part of.
+ * Sessions are owned by the minigame manager and are kept up to date as players
+ * join or leave minigames, lobbies, and teams, allowing these to be looked up
+ * in constant time.
+ */
+public class PlayerSession {
+    private final UUID uuid;
+    private Minigame minigame;
+    private VirtualLobby lobby;
+    private Team team;
+    private long lobbyJoinTime;
+
+    /**
+     * Creates a new player session.
+     *
+     * @param uuid - The UUID of the player this session belongs to.
+     */
+    PlayerSession(UUID uuid) {
+        this.uuid = uuid;
+    }
+
+    /**
+     * Gets the UUID of the player this session belongs to.
+     *
+     * @return The player UUID.
+     */
+    public UUID getUUID() {
+        return uuid;
+    }
+
+    /**
+     * Gets the minigame instance the player is currently part of.
+     *
+     * @return The minigame, or null if the player is not in a minigame.
+     */
+    public Minigame getMinigame() {
+        return minigame;
+    }
+
+    /**
+     * Sets the minigame instance the player is currently part of.
+     *
+     * @param minigame - The minigame, or null.
+     */
+    void setMinigame(Minigame minigame) {
+        this.minigame = minigame;
+    }
+
+    /**
+     * Gets the lobby the player is currently waiting in.
+     *
+     * @return The lobby, or null if the player is not in a lobby.
+     */
+    public VirtualLobby getLobby() {
+        return lobby;
+    }
+
+    /**
+     * Sets the lobby the player is currently waiting in.
+     *
+     * @param lobby - The lobby, or null.
+     */
+    void setLobby(VirtualLobby lobby) {
+        if (lobby != null && lobby != this.lobby)
+            lobbyJoinTime = System.nanoTime();
+
+        this.lobby = lobby;
+    }
+
+    /**
+     * Gets when the player joined the lobby they are currently waiting in.
+     *
+     * @return The join time, as returned by {@link System#nanoTime()}.
+     */
+    long getLobbyJoinTime() {
+        return lobbyJoinTime;
+    }
+
+    /**
+     * Gets the team the player is currently part of. If the player is in multiple
+     * teams at once, this is the team they joined first, the same as
+     * {@link TeamList#getTeam(Player)}.
+     *
+     * @return The team, or null if the player is not part of a team.
+     */
+    public Team getTeam() {
+        return team;
+    }
+
+    /**
+     * Sets the team the player is currently part of.
+     *
+     * @param team - The team, or null.
+     */
+    void setTeam(Team team) {
+        this.team = team;
+    }
+
+    /**
+     * Checks whether or not this session is no longer tracking anything for the
+     * player, and can be discarded.
+     *
+     * @return True if the player is not in a minigame, lobby, or team.
+     */
+    boolean isEmpty() {
+        return minigame == null && lobby == null && team == null;
+    }
+}
@@ -1,25 +1,39 @@
 package net.whg.minigames.framework;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerQuitEvent;
 
+import net.whg.minigames.framework.events.MinigameEndEvent;
 import net.whg.minigames.framework.exceptions.PlayerAlreadyInMinigameException;
+import net.whg.minigames.framework.logging.FrameworkLogger;
+import net.whg.minigames.framework.logging.LogCategory;
+import net.whg.minigames.framework.party.Party;
 import net.whg.utils.StringUtils;
 import net.whg.utils.WraithLib;
 
 /**
- * Contains a list of players that are waiting in a lobby for a game to start.
+ * Contains a queue of players that are waiting in a lobby for a game to start.
+ * Players are kept in the order they joined, keyed by UUID, so that joining,
+ * leaving, and being moved into a minigame instance are all constant time.
  */
 public class VirtualLobby implements Listener {
-    private final List<Player> lobby = new ArrayList<>();
+    private final Map<UUID, Player> lobby = new LinkedHashMap<>();
     private final MinigameManager manager;
     private final MinigameFactory factory;
     private final String minigameName;
+    private long countdownStart;
 
     /**
      * Creates a new virtual lobby.
@@ -34,25 +48,61 @@ public class VirtualLobby implements Listener {
     }
 
     /**
-     * Adds a player to this game's virtual lobby. If the minigame meets all
-     * requirements to begin, the minigame instance will be started instantly.
+     * Adds a player to this game's virtual lobby. The player is placed into a
+     * minigame instance by the next matchmaking pass once enough players are
+     * waiting.
      * 
      * @param player - The player to add.
      */
     void addPlayerToLobby(Player player) {
-        if (lobby.contains(player))
+        if (lobby.putIfAbsent(player.getUniqueId(), player) != null)
             return;
 
-        lobby.add(player);
-        WraithLib.log.logInfo("%s has the joined the lobby for %s.", player.getName(), minigameName);
+        manager.setSessionLobby(player, this);
+        FrameworkLogger.log.info(LogCategory.LOBBY, "%s has the joined the lobby for %s.",
+                player.getName(), minigameName);
 
-        if (shouldStart()) {
-            var minigame = manager.initializeMinigame(minigameName);
-            populateInstance(minigame);
-        } else {
-            var friendlyName = StringUtils.splitCamelCase(minigameName);
-            WraithLib.log.sendMessage(player, "You have joined the lobby for %s!", friendlyName);
+        var friendlyName = StringUtils.splitCamelCase(minigameName);
+        WraithLib.log.sendMessage(player, "You have joined the lobby for %s!", friendlyName);
+
+        updateCountdown(player);
+    }
+
+    /**
+     * Starts the fill countdown once the minimum number of players are waiting, or
+     * restarts it if the fill policy says to do so whenever a player joins. When
+     * the countdown is restarted, only the player who joined is told about it.
+     * 
+     * @param joined - The player who just joined the lobby.
+     */
+    private void updateCountdown(Player joined) {
+        var policy = factory.getFillPolicy();
+        if (policy.getMaxWaitMillis() <= 0 || getSize() < factory.getMinPlayers()
+                || getSize() >= factory.getMaxPlayers())
+            return;
+
+        if (countdownStart == 0) {
+            startCountdown();
+            return;
         }
+
+        if (!policy.isResetOnJoin())
+            return;
+
+        countdownStart = System.currentTimeMillis();
+        WraithLib.log.sendMessage(joined, "Starting in %s seconds unless the game fills up first.",
+                policy.getMaxWaitMillis() / 1000L);
+    }
+
+    /**
+     * Starts the fill countdown and tells every player waiting in this lobby.
+     */
+    private void startCountdown() {
+        countdownStart = System.currentTimeMillis();
+
+        var seconds = factory.getFillPolicy().getMaxWaitMillis() / 1000L;
+        for (var player : lobby.values())
+            WraithLib.log.sendMessage(player, "Starting in %s seconds unless the game fills up first.", seconds);
     }
 
     /**
@@ -61,34 +111,51 @@ public class VirtualLobby implements Listener {
      * @param player
      */
     void removePlayerFromLobby(Player player) {
-        lobby.remove(player);
+        if (lobby.remove(player.getUniqueId()) != null)
+            manager.setSessionLobby(player, null);
     }
 
     /**
-     * Gets all players currently in this lobby.
+     * Gets all players currently in this lobby, in the order they joined.
      * 
-     * @return The players in the lobby.
+     * @return A read-only view of the players in the lobby.
      */
-    List<Player> getPlayersInLobby() {
-        return lobby;
+    Collection<Player> getPlayersInLobby() {
+        return Collections.unmodifiableCollection(lobby.values());
     }
 
     /**
      * Puts as many players from this lobby into the minigame instance as possible.
+     * Players are taken in the order they joined, but a party is only placed if
+     * the instance has room for all of its members waiting in this lobby. Parties
+     * that do not fit are skipped and keep their place in the queue.
      * 
      * @param minigame - The minigame.
      */
     public void populateInstance(Minigame minigame) {
-        WraithLib.log.logInfo("Populating minigame instance for %s...", minigame.getID().instanceName());
+        FrameworkLogger.log.info(LogCategory.LOBBY, "Populating minigame instance for %s...",
+                minigame.getID().instanceName());
+
+        for (var player : selectPlayers(factory.getMaxPlayers() - minigame.getPlayerCount())) {
+            // Adding players fires events which may have changed the lobby.
+            if (minigame.getPlayerCount() >= factory.getMaxPlayers())
+                break;
+
+            if (lobby.remove(player.getUniqueId()) == null)
+                continue;
+
+            var session = manager.getSession(player);
+            if (session != null)
+                manager.getMetrics().getLobbyWait().recordSince(session.getLobbyJoinTime());
+
+            manager.setSessionLobby(player, null);
 
-        while (!lobby.isEmpty() && minigame.getPlayerCount() < factory.getMaxPlayers()) {
-            var player = lobby.remove(0);
             var currentMinigame = manager.getCurrentMinigame(player);
             if (currentMinigame != null)
                 currentMinigame.removePlayer(player);
 
             try {
-                WraithLib.log.logInfo("Added %s to minigame instance %s..", player.getName(),
+                FrameworkLogger.log.info(LogCategory.LOBBY, "Added %s to minigame instance %s..", player.getName(),
                         minigame.getID().instanceName());
                 minigame.addPlayer(player);
             } catch (PlayerAlreadyInMinigameException e) {
@@ -98,6 +165,102 @@ public class VirtualLobby implements Listener {
         }
     }
 
+    /**
+     * Selects the players to move into a minigame instance with the given number
+     * of free slots, keeping party members together.
+     * 
+     * @param slots - The number of free slots.
+     * @return The players to move, in the order they should be added.
+     */
+    private List<Player> selectPlayers(int slots) {
+        var selected = new ArrayList<Player>();
+        var visitedParties = new HashSet<Party>();
+        var partyManager = manager.getPartyManager();
+
+        for (var player : lobby.values()) {
+            if (selected.size() >= slots)
+                break;
+
+            var party = partyManager.getParty(player);
+            if (party == null) {
+                selected.add(player);
+                continue;
+            }
+
+            if (!visitedParties.add(party))
+                continue;
+
+            var waiting = new ArrayList<Player>();
+            for (var member : party.getMembers()) {
+                if (lobby.containsKey(member.getUniqueId()))
+                    waiting.add(member);
+            }
+
+            if (waiting.size() <= slots - selected.size())
+                selected.addAll(waiting);
+        }
+
+        return selected;
+    }
+
+    /**
+     * Places the players waiting in this lobby into minigame instances. If the
+     * minigame allows backfill, free slots in running instances are filled first.
+     * Then as many new instances are started as the remaining players allow,
+     * filling each one before starting the next. Called by the minigame manager on
+     * each matchmaking pass.
+     * 
+     * @return The number of players that were placed into minigame instances.
+     */
+    int matchmake() {
+        var placed = backfill();
+
+        while (shouldStart()) {
+            var minigame = manager.initializeMinigame(minigameName);
+            if (minigame == null)
+                break;
+
+            var waiting = getSize();
+            populateInstance(minigame);
+
+            // Players left over wait for a full countdown of their own.
+            countdownStart = 0;
+
+            if (getSize() == waiting) {
+                // Nobody could be placed, so give the arena back instead of
+                // leaving an empty instance running.
+                manager.endMinigame(minigame);
+                Bukkit.getPluginManager().callEvent(new MinigameEndEvent(minigame));
+                break;
+            }
+
+            placed += waiting - getSize();
+        }
+
+        return placed;
+    }
+
+    /**
+     * Fills free slots in running instances of this minigame that are open for
+     * backfill, using the players that have been waiting the longest.
+     * 
+     * @return The number of players that were placed into running instances.
+     */
+    private int backfill() {
+        if (lobby.isEmpty() || !factory.allowsBackfill())
+            return 0;
+
+        var waiting = getSize();
+        for (var minigame : manager.getBackfillTargets(factory)) {
+            if (lobby.isEmpty())
+                break;
+
+            populateInstance(minigame);
+        }
+
+        return waiting - getSize();
+    }
+
     /**
      * Gets the number of players currently in this lobby.
      * 
@@ -128,12 +291,31 @@ public class VirtualLobby implements Listener {
     }
 
     /**
-     * Checks whether or not the minigame is ready to be initialized.
+     * Checks whether or not the minigame is ready to be initialized. This is true
+     * once enough players are waiting to fill an instance, or once the minimum
+     * number of players are waiting and the fill countdown has run out.
      * 
      * @return True if the minigame instance is ready to be started. False
      *         otherwise.
      */
     private boolean shouldStart() {
-        return getSize() >= factory.getMinPlayers();
+        if (getSize() < factory.getMinPlayers()) {
+            countdownStart = 0;
+            return false;
+        }
+
+        if (getSize() >= factory.getMaxPlayers())
+            return true;
+
+        var maxWait = factory.getFillPolicy().getMaxWaitMillis();
+        if (maxWait <= 0)
+            return true;
+
+        if (countdownStart == 0) {
+            startCountdown();
+            return false;
+        }
+
+        return System.currentTimeMillis() - countdownStart >= maxWait;
     }
 }
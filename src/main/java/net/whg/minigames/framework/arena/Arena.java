@@ -1,12 +1,26 @@
 package net.whg.minigames.framework.arena;
 
 import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.ArmorStand;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Hanging;
+import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
 
 import net.whg.minigames.framework.MinigameID;
+import net.whg.minigames.framework.logging.FrameworkLogger;
+import net.whg.minigames.framework.logging.LogCategory;
 import net.whg.whsculpt.schematic.Schematic;
 import net.whg.whsculpt.schematic.SchematicBuildTask;
 
@@ -14,26 +28,37 @@ import net.whg.whsculpt.schematic.SchematicBuildTask;
  * Represents an arena instance in the world.
  */
 public class Arena {
-    private final Location location;
-    private final MinigameID id;
+    private final ArenaManager manager;
     private final File file;
-    private Schematic schematic;
+    private final BlockJournal journal;
+    private MinigameID id;
+    private CachedSchematic schematic;
+    private ArenaPlacement placement;
     private ArenaState state = ArenaState.NOT_BUILT;
+    private boolean claimed;
+    private boolean disposed;
+    private boolean chunksPrepared;
+    private long buildStartTime;
+    private long lastBuildTime;
+    private int minX;
+    private int minY;
+    private int minZ;
+    private int maxX;
+    private int maxY;
+    private int maxZ;
 
     /**
-     * Creates a new arena instance.
+     * Creates a new arena instance. The arena is placed by the arena manager
+     * right after it has been created.
      * 
-     * @param location - The location of this arena.
-     * @param id       - The ID of the minigame this arena is for.
+     * @param manager - The arena manager that owns this arena.
+     * @param id      - The ID of the minigame this arena is for.
      */
-    Arena(Location location, MinigameID id) {
-        this.location = location;
+    Arena(ArenaManager manager, MinigameID id) {
+        this.manager = manager;
         this.id = id;
-
-        // TODO Find a better way for store/load schematics.
-        var worldEdit = Bukkit.getPluginManager().getPlugin("WorldEdit");
-        var schematicFolder = new File(worldEdit.getDataFolder(), "schematics");
-        file = new File(schematicFolder, id.getMinigameType() + ".schem");
+        journal = new BlockJournal(manager.getJournalLimit());
+        file = manager.getSchematicFile(id.getMinigameType());
     }
 
     /**
@@ -46,36 +71,459 @@ public class Arena {
     }
 
     /**
-     * Gets the location of this arena instance.
+     * Gets the space within the world that has been set aside for this arena.
+     * 
+     * @return The placement, or null if the arena has not been placed yet.
+     * @see ArenaLayout
+     */
+    public ArenaPlacement getPlacement() {
+        return placement;
+    }
+
+    /**
+     * Sets the space within the world that has been set aside for this arena.
+     * 
+     * @param placement - The placement.
+     */
+    void setPlacement(ArenaPlacement placement) {
+        this.placement = placement;
+    }
+
+    /**
+     * Gets the location of this arena instance. Arenas are placed as soon as they
+     * are created, using the footprint of their minigame type's schematic, so the
+     * location is available before the arena has been built. If the schematic
+     * file is changed while the server is running, an arena that has not loaded
+     * its schematic yet may be moved once it does, before it is built.
      * 
-     * @return The location.
+     * @return The location, or null if the schematic of this arena's minigame
+     *         type could not be loaded.
      */
     public Location getLocation() {
-        return location;
+        if (placement == null)
+            return null;
+
+        return placement.getLocation();
+    }
+
+    /**
+     * Starts building the arena schematic. If the schematic has not been loaded
+     * yet, the arena enters the {@link ArenaState#LOADING} state while the
+     * schematic is read in the background. The arena then enters the
+     * {@link ArenaState#PREPARING} state while every chunk it covers is loaded
+     * asynchronously and held with a plugin chunk ticket, and the build task in
+     * WraithavenSculpt is started on the server thread once this is complete. If
+     * the schematic could not be loaded, the arena is returned to the
+     * {@link ArenaState#NOT_BUILT} state.
+     */
+    public void buildArena() {
+        buildStartTime = System.nanoTime();
+
+        if (schematic != null) {
+            if (chunksPrepared)
+                startBuildTask();
+            else
+                prepareChunks();
+
+            return;
+        }
+
+        setState(ArenaState.LOADING);
+        manager.getSchematicCache().acquireAsync(id.getMinigameType(), file).whenComplete(
+                (cached, error) -> manager.runOnMainThread(() -> onSchematicLoaded(cached, error)));
     }
 
     /**
-     * Creates a build task in WraithavenSculpt. to start building the arena
-     * schematic.
+     * Called on the server thread once the schematic for this arena has finished
+     * loading.
      * 
-     * @throws IOException If the schematic file could not be loaded.
+     * @param cached - The loaded schematic, or null if it failed to load.
+     * @param error  - The error that occurred while loading, or null.
      */
-    public void buildArena() throws IOException {
-        if (schematic == null)
-            schematic = Schematic.loadSchematic(file);
+    private void onSchematicLoaded(CachedSchematic cached, Throwable error) {
+        if (error != null) {
+            setState(ArenaState.NOT_BUILT);
+            Bukkit.getLogger().log(Level.SEVERE, error, () -> "Failed to build arena for " + id.instanceName() + "!");
+            return;
+        }
+
+        if (disposed) {
+            cached.release();
+            return;
+        }
+
+        schematic = cached;
+
+        if (placement == null || !manager.getLayout().fits(placement, cached.getSchematic()))
+            placement = manager.placeArena(this, cached.getSchematic());
+
+        updateBounds();
+        forEachChunk((world, chunkX, chunkZ) -> manager.indexChunk(chunkX, chunkZ, this));
+        prepareChunks();
+    }
+
+    /**
+     * Loads every chunk covered by this arena asynchronously, then adds a plugin
+     * chunk ticket to each of them so that they stay loaded for as long as this
+     * arena exists. Once all chunks are loaded, the build task is started.
+     */
+    private void prepareChunks() {
+        setState(ArenaState.PREPARING);
+
+        var loads = new ArrayList<CompletableFuture<?>>();
+        forEachChunk((world, chunkX, chunkZ) -> loads.add(world.getChunkAtAsync(chunkX, chunkZ)));
+
+        CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0])).whenComplete(
+                (result, error) -> manager.runOnMainThread(() -> onChunksPrepared(error)));
+    }
+
+    /**
+     * Called on the server thread once all chunks covered by this arena have
+     * finished loading.
+     * 
+     * @param error - The error that occurred while loading, or null.
+     */
+    private void onChunksPrepared(Throwable error) {
+        if (disposed)
+            return;
+
+        if (error != null) {
+            setState(ArenaState.NOT_BUILT);
+            Bukkit.getLogger().log(Level.SEVERE, error,
+                    () -> "Failed to load chunks for arena " + id.instanceName() + "!");
+            return;
+        }
+
+        forEachChunk((world, chunkX, chunkZ) -> world.addPluginChunkTicket(chunkX, chunkZ, manager.getPlugin()));
+        chunksPrepared = true;
+        startBuildTask();
+    }
+
+    /**
+     * Removes the plugin chunk tickets held by this arena, allowing its chunks to
+     * be unloaded.
+     */
+    private void releaseChunks() {
+        if (!chunksPrepared)
+            return;
 
+        chunksPrepared = false;
+        forEachChunk((world, chunkX, chunkZ) -> world.removePluginChunkTicket(chunkX, chunkZ, manager.getPlugin()));
+    }
+
+    /**
+     * Calls the given action for every chunk covered by this arena.
+     * 
+     * @param action - The action to call.
+     */
+    private void forEachChunk(ChunkAction action) {
+        var world = getLocation().getWorld();
+        for (var chunkX = minX >> 4; chunkX <= (maxX - 1) >> 4; chunkX++) {
+            for (var chunkZ = minZ >> 4; chunkZ <= (maxZ - 1) >> 4; chunkZ++)
+                action.apply(world, chunkX, chunkZ);
+        }
+    }
+
+    /**
+     * Queues this arena to be built by the arena build scheduler.
+     */
+    private void startBuildTask() {
+        journal.clear();
         setState(ArenaState.BUILDING);
-        new SchematicBuildTask(schematic, location).start();
+        manager.getBuildScheduler().queueBuild(this);
+    }
+
+    /**
+     * Creates a build task in WraithavenSculpt to start building the arena
+     * schematic. Called by the arena build scheduler once there is room for
+     * another build.
+     */
+    void startSchematicBuild() {
+        new SchematicBuildTask(schematic.getSchematic(), getLocation()).start();
+    }
+
+    /**
+     * Records how long this arena took to build, from the build being started
+     * until now. Called by the arena manager when the arena is completed.
+     */
+    void markBuildFinished() {
+        lastBuildTime = System.nanoTime() - buildStartTime;
+    }
+
+    /**
+     * Gets how long this arena took to build the last time it was built or reset,
+     * from {@link #buildArena()} being called until the arena was completed.
+     * 
+     * @return The build time, in nanoseconds, or 0 if the arena has not been
+     *         completed yet.
+     */
+    public long getLastBuildTime() {
+        return lastBuildTime;
+    }
+
+    /**
+     * Records the positions of the placeholder entities spawned by the schematic
+     * build in the schematic's placeholder index. A placeholder entity is
+     * represented as an armor stand with a custom name. This is only done for
+     * the first arena built from a schematic, even if it contains no
+     * placeholders, so that later arenas can resolve them without searching for
+     * the entities at all.
+     * Only the chunks covered by this arena are searched. No entities are
+     * removed here, since the stands are only known to be placeholders once a
+     * minigame asks for them by name.
+     */
+    void indexPlaceholders() {
+        if (schematic.getPlaceholders() != null)
+            return;
+
+        var location = getLocation();
+        var index = new PlaceholderIndex();
+        var bounds = new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+
+        for (var entity : location.getWorld().getNearbyEntities(bounds, ArmorStand.class::isInstance)) {
+            if (entity.getCustomName() == null)
+                continue;
+
+            var offset = entity.getLocation().subtract(location);
+            offset.setWorld(null);
+            index.add(entity.getName(), offset);
+        }
+
+        // An empty index is cached as well, so that schematics without any
+        // placeholders are never searched again.
+        schematic.setPlaceholders(index);
+        FrameworkLogger.log.info(LogCategory.ARENA, "Indexed %s placeholders for %s.", index.size(),
+                id.getMinigameType());
+    }
+
+    /**
+     * Removes the placeholder entities with the given name from this arena. Only
+     * armor stands at the indexed placeholder positions are checked, so other
+     * named armor stands that are part of the schematic are left in place.
+     * 
+     * @param name - The name of the placeholder.
+     * @return The locations of the placeholders with the given name.
+     */
+    public List<Location> removePlaceholders(String name) {
+        var index = getPlaceholders();
+        var location = getLocation();
+        if (index == null || location == null)
+            return new ArrayList<>();
+
+        var placeholders = index.resolve(name, location);
+        for (var placeholder : placeholders) {
+            for (var entity : location.getWorld().getNearbyEntities(placeholder, 0.5, 0.5, 0.5,
+                    e -> e instanceof ArmorStand && name.equals(e.getCustomName())))
+                entity.remove();
+        }
+
+        return placeholders;
+    }
+
+    /**
+     * Gets the placeholder index for this arena's schematic.
+     * 
+     * @return The placeholder index, or null if the schematic has not been built
+     *         yet.
+     */
+    public PlaceholderIndex getPlaceholders() {
+        if (schematic == null)
+            return null;
+
+        return schematic.getPlaceholders();
+    }
+
+    /**
+     * Updates the world-space bounds of this arena from its schematic.
+     */
+    private void updateBounds() {
+        var location = getLocation();
+        var schem = schematic.getSchematic();
+        var origin = schem.getOrigin();
+        var min = schem.getMinimumPoint();
+        var max = schem.getMaximumPoint();
+
+        minX = location.getBlockX() + min.x - origin.x;
+        minY = location.getBlockY() + min.y - origin.y;
+        minZ = location.getBlockZ() + min.z - origin.z;
+        maxX = location.getBlockX() + max.x - origin.x;
+        maxY = location.getBlockY() + max.y - origin.y;
+        maxZ = location.getBlockZ() + max.z - origin.z;
+    }
+
+    /**
+     * Checks whether the given block is within the bounds of this arena. Always
+     * returns false if the schematic has not been loaded yet.
+     * 
+     * @param block - The block.
+     * @return True if the block is inside this arena. False otherwise.
+     */
+    public boolean contains(Block block) {
+        if (schematic == null || placement == null || block.getWorld() != placement.getLocation().getWorld())
+            return false;
+
+        var x = block.getX();
+        var y = block.getY();
+        var z = block.getZ();
+        return x >= minX && x < maxX && y >= minY && y < maxY && z >= minZ && z < maxZ;
+    }
+
+    /**
+     * Records that the given block is about to be changed during a match, so that
+     * it can be restored when the arena is reset. Changes made outside of a match
+     * are ignored. Minigames that modify arena blocks directly, rather than
+     * through player actions, should call this before doing so.
+     * 
+     * @param block - The block that is about to change.
+     */
+    public void recordBlockChange(Block block) {
+        if (state == ArenaState.ACTIVE)
+            journal.record(block);
+    }
+
+    /**
+     * Records that the given block has been changed during a match, so that it can
+     * be restored when the arena is reset. Changes made outside of a match are
+     * ignored.
+     * 
+     * @param block    - The block that was changed.
+     * @param original - The block data before the change.
+     */
+    public void recordBlockChange(Block block, BlockData original) {
+        if (state == ArenaState.ACTIVE)
+            journal.record(block, original);
+    }
+
+    /**
+     * Records that a block has been changed during a match, so that it can be
+     * restored when the arena is reset. If the original state belongs to a tile
+     * entity, its contents are restored as well. Changes made outside of a match
+     * are ignored.
+     * 
+     * @param original - A snapshot of the block state before the change.
+     */
+    public void recordBlockChange(BlockState original) {
+        if (state == ArenaState.ACTIVE)
+            journal.record(original);
+    }
+
+    /**
+     * Resets this arena after a match so that it can be reused. Entities left
+     * behind by the match are removed right away. Only the blocks recorded in the
+     * block journal are restored by the arena build scheduler, including the
+     * contents of any tile entities, spread over multiple ticks, while the arena
+     * is in the
+     * {@link ArenaState#NEEDS_REBUILD} state. If too many blocks were changed to
+     * be recorded, the schematic is built again in full instead.
+     */
+    void resetArena() {
+        buildStartTime = System.nanoTime();
+        clearEntities();
+
+        if (schematic == null || journal.isOverflowed()) {
+            buildArena();
+            return;
+        }
+
+        setState(ArenaState.NEEDS_REBUILD);
+        manager.getBuildScheduler().queueReset(this);
+    }
+
+    /**
+     * Removes the entities left behind by a match, such as dropped items, arrows,
+     * and mobs, from within the bounds of this arena. Players are left alone, as
+     * are armor stands and hanging entities such as item frames and paintings,
+     * since those are part of the schematic.
+     */
+    private void clearEntities() {
+        if (placement == null || schematic == null)
+            return;
+
+        var bounds = new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+        for (var entity : getLocation().getWorld().getNearbyEntities(bounds, this::isMatchEntity))
+            entity.remove();
+    }
+
+    /**
+     * Checks whether the given entity was left behind by a match, rather than
+     * being a player or part of the schematic.
+     * 
+     * @param entity - The entity.
+     * @return True if the entity should be removed when the arena is reset.
+     */
+    private boolean isMatchEntity(Entity entity) {
+        return !(entity instanceof Player || entity instanceof ArmorStand || entity instanceof Hanging);
+    }
+
+    /**
+     * Gets the block journal recording the changes made to this arena during the
+     * current match.
+     * 
+     * @return The block journal.
+     */
+    public BlockJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Assigns a new minigame ID to this arena with the same type and instance IDs,
+     * so that the next minigame using this arena receives a new unique ID.
+     */
+    void renewID() {
+        id = new MinigameID(id.getMinigameType(), id.getTypeID(), id.getInstanceID());
     }
 
     /**
      * Gets the schematic associated with this arena. The schematic object is not
-     * loaded until {@link #buildArena()} is called at least once.
+     * loaded until {@link #buildArena()} is called at least once. This schematic
+     * is shared with all other arenas of the same minigame type, and must not be
+     * modified.
      * 
      * @return The schematic, or null if the schematic has not been loaded yet.
      */
     public Schematic getSchematic() {
-        return schematic;
+        if (schematic == null)
+            return null;
+
+        return schematic.getSchematic();
+    }
+
+    /**
+     * Gets whether or not this arena is currently in use by a minigame instance.
+     * Arenas that are waiting in a warm pool are not claimed.
+     * 
+     * @return True if this arena is claimed by a minigame. False otherwise.
+     */
+    public boolean isClaimed() {
+        return claimed;
+    }
+
+    /**
+     * Sets whether or not this arena is currently in use by a minigame instance.
+     * 
+     * @param claimed - True if the arena is claimed.
+     */
+    void setClaimed(boolean claimed) {
+        this.claimed = claimed;
+    }
+
+    /**
+     * Releases the schematic held by this arena, allowing it to be evicted from
+     * the schematic cache once no other arenas are using it.
+     */
+    void dispose() {
+        disposed = true;
+
+        manager.getBuildScheduler().cancel(this);
+        releaseChunks();
+
+        if (schematic == null)
+            return;
+
+        forEachChunk((world, chunkX, chunkZ) -> manager.unindexChunk(chunkX, chunkZ, this));
+
+        schematic.release();
+        schematic = null;
     }
 
     /**
@@ -95,4 +543,19 @@ public class Arena {
     void setState(ArenaState state) {
         this.state = state;
     }
+
+    /**
+     * An action that is applied to a single chunk of an arena.
+     */
+    @FunctionalInterface
+    private interface ChunkAction {
+        /**
+         * Applies this action to the given chunk.
+         * 
+         * @param world  - The world the chunk is in.
+         * @param chunkX - The chunk X coordinate.
+         * @param chunkZ - The chunk Z coordinate.
+         */
+        void apply(World world, int chunkX, int chunkZ);
+    }
 }
@@ -0,0 +1,111 @@
+package net.whg.minigames.framework.arena;
+
+/**
+ * A single arena build or reset that is waiting for, or currently using, time
+ * from the arena build scheduler.
+ */
+public class ArenaBuildJob {
+    private final Arena arena;
+    private final boolean reset;
+    private final long queuedTime;
+    private long startedTime;
+    private boolean started;
+
+    /**
+     * Creates a new build job.
+     *
+     * @param arena - The arena to build.
+     * @param reset - True if the arena should be reset from its block journal.
+     *              False if the full schematic should be built.
+     */
+    ArenaBuildJob(Arena arena, boolean reset) {
+        this.arena = arena;
+        this.reset = reset;
+        queuedTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the arena being built.
+     *
+     * @return The arena.
+     */
+    public Arena getArena() {
+        return arena;
+    }
+
+    /**
+     * Gets whether this job resets the arena from its block journal, rather than
+     * building the full schematic.
+     *
+     * @return True if this is a journal reset.
+     */
+    public boolean isReset() {
+        return reset;
+    }
+
+    /**
+     * Gets whether this job is waiting on a minigame instance that has already
+     * claimed the arena. Such jobs are given time before all others.
+     *
+     * @return True if a minigame is waiting for this arena.
+     */
+    public boolean isUrgent() {
+        return arena.isClaimed();
+    }
+
+    /**
+     * Gets whether this job has been given any time by the scheduler yet.
+     *
+     * @return True if this job has started.
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Gets the time this job was queued.
+     *
+     * @return The time, in milliseconds.
+     */
+    public long getQueuedTime() {
+        return queuedTime;
+    }
+
+    /**
+     * Gets the time this job was first given time by the scheduler.
+     *
+     * @return The time, in milliseconds, or 0 if this job has not started yet.
+     */
+    public long getStartedTime() {
+        return startedTime;
+    }
+
+    /**
+     * Gets the progress of this job. Journal resets report the fraction of blocks
+     * that have been restored. Schematic builds are run by WraithavenSculpt, which
+     * does not report its progress, so they report 0 until they finish.
+     *
+     * @return The progress, from 0 to 1.
+     */
+    public double getProgress() {
+        if (!reset || !started)
+            return 0;
+
+        var journal = arena.getJournal();
+        if (journal.size() == 0)
+            return 1;
+
+        return (double) journal.getRestoredBlocks() / journal.size();
+    }
+
+    /**
+     * Marks this job as started.
+     */
+    void markStarted() {
+        if (started)
+            return;
+
+        started = true;
+        startedTime = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,228 @@
+package net.whg.minigames.framework.arena;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Coordinates all arena builds and resets on the server, so that they share a
+ * single per-tick time budget rather than each adding their own cost to the
+ * tick. Arenas that a minigame instance is already waiting on are always given
+ * time before arenas that are only being prepared for a warm pool.
+ * <p>
+ * Journal resets are run directly by this scheduler in small batches until the
+ * budget for the tick has been used. Full schematic builds are run by
+ * WraithavenSculpt, so the scheduler instead limits how many of them may run
+ * at the same time, starting queued builds as running ones finish. Builds for
+ * arenas that a minigame is waiting on are started before any queued warm pool
+ * builds, but are still held to the same limit.
+ */
+public class ArenaBuildScheduler {
+    private static final int RESET_BATCH_SIZE = 64;
+
+    private final List<ArenaBuildJob> jobs = new ArrayList<>();
+    private final ArenaManager manager;
+    private final long budgetNanos;
+    private final int maxConcurrentBuilds;
+    private int runningBuilds;
+
+    /**
+     * Creates a new arena build scheduler.
+     *
+     * @param manager             - The arena manager that owns this scheduler.
+     * @param plugin              - The plugin to run the scheduler under.
+     * @param budgetMillis        - The number of milliseconds per tick that may be
+     *                            spent on arena builds, shared by all builds.
+     * @param maxConcurrentBuilds - The maximum number of full schematic builds
+     *                            that may run at the same time.
+     */
+    ArenaBuildScheduler(ArenaManager manager, Plugin plugin, double budgetMillis, int maxConcurrentBuilds) {
+        this.manager = manager;
+        this.budgetNanos = (long) (budgetMillis * 1_000_000L);
+        this.maxConcurrentBuilds = Math.max(maxConcurrentBuilds, 1);
+
+        Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+
+    /**
+     * Queues a full schematic build for the given arena. Any job already queued
+     * for the arena is replaced.
+     *
+     * @param arena - The arena to build.
+     */
+    void queueBuild(Arena arena) {
+        cancel(arena);
+        jobs.add(new ArenaBuildJob(arena, false));
+    }
+
+    /**
+     * Queues a journal reset for the given arena. Any job already queued for the
+     * arena is replaced.
+     *
+     * @param arena - The arena to reset.
+     */
+    void queueReset(Arena arena) {
+        cancel(arena);
+        jobs.add(new ArenaBuildJob(arena, true));
+    }
+
+    /**
+     * Removes any job queued for the given arena. If the job is a running
+     * schematic build, its slot is freed for the next queued build. This is
+     * called when the arena has been built, has failed to build, or has been
+     * disposed.
+     *
+     * @param arena - The arena.
+     */
+    void cancel(Arena arena) {
+        var job = findJob(arena);
+        if (job == null)
+            return;
+
+        jobs.remove(job);
+        if (job.isStarted() && !job.isReset())
+            runningBuilds--;
+    }
+
+    /**
+     * Called when WraithavenSculpt has finished building the schematic for the
+     * given arena, freeing up room for the next queued build. A job queued for
+     * the arena that has not started yet is left alone.
+     *
+     * @param arena - The arena that was built.
+     */
+    void onSchematicBuilt(Arena arena) {
+        var job = findJob(arena);
+        if (job != null && job.isStarted() && !job.isReset())
+            cancel(arena);
+    }
+
+    /**
+     * Finds the job for the given arena.
+     *
+     * @param arena - The arena.
+     * @return The job, or null if the arena has no queued job.
+     */
+    private ArenaBuildJob findJob(Arena arena) {
+        for (var job : jobs) {
+            if (job.getArena() == arena)
+                return job;
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the job for the given arena, allowing its progress to be checked.
+     *
+     * @param arena - The arena.
+     * @return The job, or null if the arena is not being built.
+     */
+    public ArenaBuildJob getJob(Arena arena) {
+        return findJob(arena);
+    }
+
+    /**
+     * Gets a snapshot of all jobs that are currently queued or running.
+     *
+     * @return A list of build jobs.
+     */
+    public List<ArenaBuildJob> getJobs() {
+        return new ArrayList<>(jobs);
+    }
+
+    /**
+     * Gets the number of full schematic builds currently running.
+     *
+     * @return The number of running schematic builds.
+     */
+    public int getRunningBuilds() {
+        return runningBuilds;
+    }
+
+    /**
+     * Spends up to the tick budget on queued jobs, urgent jobs first.
+     */
+    private void tick() {
+        if (jobs.isEmpty())
+            return;
+
+        var deadline = System.nanoTime() + budgetNanos;
+        var finished = new ArrayList<Arena>();
+
+        runJobs(deadline, true, finished);
+        runJobs(deadline, false, finished);
+
+        // Finished arenas are only announced once all jobs have been run, since
+        // listeners may queue new builds in response.
+        for (var arena : finished)
+            manager.markBuilt(arena);
+    }
+
+    /**
+     * Runs all queued jobs with the given urgency until the deadline is reached.
+     *
+     * @param deadline - The time to stop at, from {@link System#nanoTime()}.
+     * @param urgent   - Whether to run urgent or non-urgent jobs.
+     * @param finished - The list to add arenas that finished resetting to.
+     */
+    private void runJobs(long deadline, boolean urgent, List<Arena> finished) {
+        for (var iterator = jobs.iterator(); iterator.hasNext();) {
+            if (System.nanoTime() >= deadline)
+                return;
+
+            var job = iterator.next();
+            if (job.isUrgent() != urgent)
+                continue;
+
+            if (job.isReset()) {
+                job.markStarted();
+
+                if (runReset(job, deadline)) {
+                    iterator.remove();
+                    finished.add(job.getArena());
+                }
+            } else if (!job.isStarted() && runningBuilds < maxConcurrentBuilds) {
+                job.markStarted();
+                runningBuilds++;
+
+                try {
+                    job.getArena().startSchematicBuild();
+                } catch (RuntimeException e) {
+                    iterator.remove();
+                    runningBuilds--;
+                    job.getArena().setState(ArenaState.NOT_BUILT);
+                    Bukkit.getLogger().log(Level.SEVERE, e,
+                            () -> "Failed to build arena for " + job.getArena().getID().instanceName() + "!");
+                }
+            }
+        }
+    }
+
+    /**
+     * Restores journaled blocks for the given reset job in small batches until the
+     * job is complete or the deadline is reached.
+     *
+     * @param job      - The reset job.
+     * @param deadline - The time to stop at, from {@link System#nanoTime()}.
+     * @return True if the reset is complete. False otherwise.
+     */
+    private boolean runReset(ArenaBuildJob job, long deadline) {
+        var arena = job.getArena();
+        var location = arena.getLocation();
+        if (location == null)
+            return true;
+
+        var world = location.getWorld();
+
+        do {
+            if (arena.getJournal().restore(world, RESET_BATCH_SIZE))
+                return true;
+        } while (System.nanoTime() < deadline);
+
+        return false;
+    }
+}
@@ -0,0 +1,222 @@
+package net.whg.minigames.framework.arena;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import net.whg.whsculpt.schematic.Schematic;
+
+/**
+ * Packs arenas into the minigame world based on the actual footprint of each
+ * minigame type's schematic. Each minigame type is given its own lane, a square
+ * grid of slots that are sized to fit the schematic plus a safety margin. Lanes
+ * are stacked along the Z axis as new types are first built, and a type that
+ * fills its lane is given another one, so arenas stay within a bounded width
+ * along the X axis. Small arenas are aligned to whole chunks and packed closely
+ * together, while arenas larger than a region file are aligned to whole region
+ * files.
+ * <p>
+ * The footprint of each minigame type is remembered once its schematic has
+ * been loaded for the first time, so that later arenas of the same type can be
+ * placed as soon as they are created, before their schematic has been loaded.
+ */
+public class ArenaLayout {
+    private final Map<String, List<ArenaSlotAllocator>> lanes = new HashMap<>();
+    private final Map<String, Footprint> footprints = new HashMap<>();
+    private final World world;
+    private final int margin;
+    private final int originX;
+    private final int height;
+    private final int laneSize;
+    private int nextLaneZ;
+
+    /**
+     * Creates a new arena layout.
+     *
+     * @param world    - The world to place arenas in.
+     * @param margin   - The number of empty blocks to leave on each side of an
+     *                 arena.
+     * @param originX  - The X coordinate that all lanes start at.
+     * @param originZ  - The Z coordinate of the first lane.
+     * @param height   - The Y coordinate to build arenas at.
+     * @param laneSize - The width and depth of each lane, in blocks. Lanes are
+     *                 always large enough for at least one slot.
+     */
+    public ArenaLayout(World world, int margin, int originX, int originZ, int height, int laneSize) {
+        this.world = world;
+        this.margin = Math.max(margin, 0);
+        this.originX = originX;
+        this.height = height;
+        this.laneSize = laneSize;
+        nextLaneZ = originZ;
+    }
+
+    /**
+     * Allocates space for a new arena using the given schematic. The returned
+     * location is chosen so that the schematic's bounds are centered within the
+     * allocated slot. The footprint of the schematic is remembered for the given
+     * minigame type.
+     *
+     * @param minigameType - The minigame type of the arena.
+     * @param schematic    - The schematic that will be built.
+     * @return The placement for the arena.
+     */
+    public ArenaPlacement allocate(String minigameType, Schematic schematic) {
+        updateFootprint(minigameType, schematic);
+        return allocate(minigameType);
+    }
+
+    /**
+     * Remembers the footprint of the given schematic for the given minigame type,
+     * so that later arenas of this type can be placed before their schematic is
+     * loaded.
+     *
+     * @param minigameType - The minigame type.
+     * @param schematic    - The schematic of the minigame type.
+     */
+    public void updateFootprint(String minigameType, Schematic schematic) {
+        footprints.put(minigameType, getFootprint(schematic));
+    }
+
+    /**
+     * Allocates space for a new arena using the last known footprint of the given
+     * minigame type.
+     *
+     * @param minigameType - The minigame type of the arena.
+     * @return The placement for the arena, or null if no schematic of the given
+     *         minigame type has been placed yet.
+     */
+    public ArenaPlacement allocate(String minigameType) {
+        var footprint = footprints.get(minigameType);
+        if (footprint == null)
+            return null;
+
+        return allocate(minigameType, footprint);
+    }
+
+    /**
+     * Checks whether the given schematic is built at the same location within
+     * the given placement, and fits inside of it, as the footprint the placement
+     * was allocated for. This is not the case if the schematic file has been
+     * changed since the placement was allocated.
+     *
+     * @param placement - The placement.
+     * @param schematic - The schematic.
+     * @return True if the schematic can be built using the given placement.
+     */
+    public boolean fits(ArenaPlacement placement, Schematic schematic) {
+        var footprint = getFootprint(schematic);
+        var lane = placement.getLane();
+
+        return lane.getSlotWidth() >= footprint.width() && lane.getSlotDepth() >= footprint.depth()
+                && placement.getLocation().equals(locate(lane, placement.getSlot(), footprint));
+    }
+
+    /**
+     * Gets whether the footprint of the given minigame type is known, allowing
+     * its arenas to be placed before their schematic is loaded.
+     *
+     * @param minigameType - The minigame type.
+     * @return True if the footprint of the given type is known.
+     */
+    public boolean hasFootprint(String minigameType) {
+        return footprints.containsKey(minigameType);
+    }
+
+    /**
+     * Allocates space for a new arena with the given footprint.
+     *
+     * @param minigameType - The minigame type of the arena.
+     * @param footprint    - The footprint of the arena's schematic.
+     * @return The placement for the arena.
+     */
+    private ArenaPlacement allocate(String minigameType, Footprint footprint) {
+        var lane = getLane(minigameType, footprint.width(), footprint.depth());
+        var slot = lane.allocate();
+        return new ArenaPlacement(lane, slot, locate(lane, slot, footprint));
+    }
+
+    /**
+     * Gets the location to build a schematic with the given footprint at, so that
+     * its bounds are centered within the given slot.
+     *
+     * @param lane      - The lane.
+     * @param slot      - The slot within the lane.
+     * @param footprint - The footprint of the schematic.
+     * @return The build location.
+     */
+    private Location locate(ArenaSlotAllocator lane, int slot, Footprint footprint) {
+        var x = lane.getCenterX(slot) + footprint.offsetX();
+        var z = lane.getCenterZ(slot) + footprint.offsetZ();
+        return new Location(world, x, height, z);
+    }
+
+    /**
+     * Measures the footprint of the given schematic, including margins.
+     *
+     * @param schematic - The schematic.
+     * @return The footprint.
+     */
+    private Footprint getFootprint(Schematic schematic) {
+        var min = schematic.getMinimumPoint();
+        var max = schematic.getMaximumPoint();
+        var origin = schematic.getOrigin();
+
+        return new Footprint(max.x - min.x + margin * 2, max.z - min.z + margin * 2,
+                origin.x - (min.x + max.x) / 2, origin.z - (min.z + max.z) / 2);
+    }
+
+    /**
+     * Frees the space used by the given placement, allowing it to be reused by the
+     * next arena of the same minigame type.
+     *
+     * @param placement - The placement to free.
+     */
+    public void free(ArenaPlacement placement) {
+        placement.getLane().free(placement.getSlot());
+    }
+
+    /**
+     * Gets a lane with a free slot for the given minigame type and footprint,
+     * creating a new lane if the type has not been placed before, if its
+     * schematic has grown, or if all of its lanes are full.
+     *
+     * @param minigameType - The minigame type.
+     * @param width        - The footprint along the X axis, including margins.
+     * @param depth        - The footprint along the Z axis, including margins.
+     * @return The lane.
+     */
+    private ArenaSlotAllocator getLane(String minigameType, int width, int depth) {
+        var typeLanes = lanes.computeIfAbsent(minigameType, k -> new ArrayList<>());
+        for (var lane : typeLanes) {
+            if (lane.getSlotWidth() >= width && lane.getSlotDepth() >= depth && !lane.isFull())
+                return lane;
+        }
+
+        var alignment = Math.max(width, depth) >= ArenaSlotAllocator.REGION_SIZE ? ArenaSlotAllocator.REGION_SIZE
+                : ArenaSlotAllocator.CHUNK_SIZE;
+
+        // Lanes are never reclaimed, since arenas in an outdated lane may still be
+        // in use. A schematic growing is rare enough for this not to matter.
+        var laneZ = ArenaSlotAllocator.align(nextLaneZ, alignment);
+        var slotWidth = Math.max(ArenaSlotAllocator.align(width, alignment), alignment);
+        var slotDepth = Math.max(ArenaSlotAllocator.align(depth, alignment), alignment);
+        var lane = new ArenaSlotAllocator(world, width, depth, alignment, Math.max(laneSize / slotWidth, 1),
+                Math.max(laneSize / slotDepth, 1), originX, laneZ);
+        nextLaneZ = laneZ + lane.getRows() * lane.getSlotDepth();
+
+        typeLanes.add(lane);
+        return lane;
+    }
+
+    /**
+     * The space a schematic needs within a slot, and where it is built relative
+     * to the center of that slot.
+     */
+    private record Footprint(int width, int depth, int offsetX, int offsetZ) {
+    }
+}
@@ -1,26 +1,107 @@
 package net.whg.minigames.framework.arena;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.DoubleChest;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockIgniteEvent;
+import org.bukkit.event.block.BlockMultiPlaceEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.block.SignChangeEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.event.player.PlayerBucketEmptyEvent;
+import org.bukkit.event.player.PlayerBucketFillEvent;
+import org.bukkit.event.world.StructureGrowEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.plugin.Plugin;
 
 import net.whg.minigames.framework.MinigameID;
 import net.whg.minigames.framework.events.ArenaCompletedEvent;
+import net.whg.minigames.framework.utilities.LongObjectMap;
 import net.whg.whsculpt.events.FinishedBuildingSchematicEvent;
+import net.whg.whsculpt.schematic.Schematic;
 
 /**
  * A handler class for creating new arena instances as needed for new minigame
  * instances.
  */
 public class ArenaManager implements Listener {
-    private final List<Arena> arenas = new ArrayList<>();
-    private final int arenaDistance;
+    /**
+     * Packs the given minigame type ID and instance ID into a single long key.
+     * 
+     * @param typeID     - The type ID of the minigame.
+     * @param instanceID - The instance ID of the minigame.
+     * @return The packed ID.
+     */
+    private static long packID(int typeID, int instanceID) {
+        return ((long) typeID << 32) | (instanceID & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Packs the block coordinates of the given location into a single long key.
+     * 
+     * @param location - The location.
+     * @return The packed block position.
+     */
+    private static long packLocation(Location location) {
+        return BlockJournal.packPosition(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * Packs the given chunk coordinates into a single long key.
+     * 
+     * @param chunkX - The chunk X coordinate.
+     * @param chunkZ - The chunk Z coordinate.
+     * @return The packed chunk position.
+     */
+    private static long packChunk(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private final Set<Arena> arenas = new LinkedHashSet<>();
+    private final LongObjectMap<Arena> arenasByID = new LongObjectMap<>();
+    private final LongObjectMap<Arena> arenasByLocation = new LongObjectMap<>();
+    private final LongObjectMap<Arena> arenasByChunk = new LongObjectMap<>();
+    private final Map<String, Deque<Arena>> warmPools = new HashMap<>();
+    private final Map<String, Integer> warmPoolSizes = new HashMap<>();
+    private final Map<String, Integer> claimedArenas = new HashMap<>();
+    private final SchematicCache schematicCache;
+    private final ExecutorService schematicLoader;
+    private final Plugin plugin;
+    private final ArenaLayout layout;
+    private final int journalLimit;
+    private final ArenaBuildScheduler buildScheduler;
     private final World world;
 
     /**
@@ -29,61 +110,507 @@ public class ArenaManager implements Listener {
      * @param world - The world this distributor operates in.
      */
     public ArenaManager(Plugin plugin) {
+        this.plugin = plugin;
         var config = plugin.getConfig();
 
-        arenaDistance = config.getInt("ArenaDistance");
+        journalLimit = config.getInt("ArenaJournalLimit");
+        buildScheduler = new ArenaBuildScheduler(this, plugin, config.getDouble("ArenaBuildBudget"),
+                config.getInt("MaxConcurrentArenaBuilds"));
         world = Bukkit.getWorld(config.getString("MinigameWorld"));
 
+        var layoutOrigin = config.getInt("ArenaLayoutOrigin");
+        layout = new ArenaLayout(world, config.getInt("ArenaMargin"), layoutOrigin, layoutOrigin, 64,
+                config.getInt("ArenaLaneSize"));
+
+        schematicLoader = Executors.newFixedThreadPool(Math.max(config.getInt("SchematicLoaderThreads"), 1), r -> {
+            var thread = new Thread(r, "HG-Minigames Schematic Loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        var cacheExpiry = config.getLong("SchematicCacheExpiry");
+        schematicCache = new SchematicCache(schematicLoader, cacheExpiry * 1000L);
+
+        var evictionInterval = Math.max(cacheExpiry, 1L) * 20L;
+        Bukkit.getScheduler().runTaskTimer(plugin, schematicCache::evictUnused, evictionInterval, evictionInterval);
+
         Bukkit.getPluginManager().registerEvents(this, plugin);
     }
 
     /**
-     * Gets the target location for the given minigame type ID and instance ID.
+     * Gets or creates a new arena instance for the given minigame ID. Arenas
+     * returned from this method are considered to be in use by the minigame with
+     * the given ID.
+     * 
+     * @param id - The minigame ID.
+     * @return The arena instance.
+     */
+    public Arena getArena(MinigameID id) {
+        var existing = findArena(id.getTypeID(), id.getInstanceID());
+        if (existing != null)
+            return existing;
+
+        var arena = createArena(id);
+        claim(arena);
+        return arena;
+    }
+
+    /**
+     * Finds the existing arena with the given type ID and instance ID.
      * 
      * @param typeID     - The type ID of the minigame.
      * @param instanceID - The instance ID of the minigame.
-     * @return The arena location for the given instance.
+     * @return The arena, or null if there is no arena with the given IDs.
      */
-    private Location getLocation(int typeID, int instanceID) {
-        var x = (typeID + 1) * arenaDistance;
-        var y = 64;
-        var z = (instanceID + 1) * arenaDistance;
-        return new Location(world, x, y, z);
+    private Arena findArena(int typeID, int instanceID) {
+        return arenasByID.get(packID(typeID, instanceID));
     }
 
     /**
-     * Gets or creates a new arena instance for the given minigame ID.
+     * Creates a new arena instance for the given minigame ID.
      * 
      * @param id - The minigame ID.
-     * @return The arena instance.
+     * @return The new arena.
      */
-    public Arena getArena(MinigameID id) {
-        for (var arena : arenas) {
-            var arenaID = arena.getID();
-            if (arenaID.getTypeID() == id.getTypeID() && arenaID.getInstanceID() == id.getInstanceID())
-                return arena;
+    private Arena createArena(MinigameID id) {
+        var arena = new Arena(this, id);
+        arenas.add(arena);
+        arenasByID.put(packID(id.getTypeID(), id.getInstanceID()), arena);
+
+        if (loadFootprint(id.getMinigameType())) {
+            var placement = layout.allocate(id.getMinigameType());
+            arena.setPlacement(placement);
+            arenasByLocation.put(packLocation(placement.getLocation()), arena);
         }
 
-        var location = getLocation(id.getTypeID(), id.getInstanceID());
-        var arena = new Arena(location, id);
-        arenas.add(arena);
+        return arena;
+    }
+
+    /**
+     * Makes sure the footprint of the given minigame type is known to the arena
+     * layout, so that its arenas can be placed as soon as they are created. If
+     * no arena of this type has been placed yet, the schematic is loaded on the
+     * calling thread. This only happens once per minigame type, when the type is
+     * first used.
+     * 
+     * @param minigameType - The name of the minigame type.
+     * @return True if the footprint is known. False if the schematic could not be
+     *         loaded.
+     */
+    private boolean loadFootprint(String minigameType) {
+        if (layout.hasFootprint(minigameType))
+            return true;
+
+        try {
+            var cached = schematicCache.acquireAsync(minigameType, getSchematicFile(minigameType)).join();
+            layout.updateFootprint(minigameType, cached.getSchematic());
+            cached.release();
+        } catch (CompletionException e) {
+            Bukkit.getLogger().log(Level.SEVERE, e.getCause(),
+                    () -> "Failed to load arena schematic for " + minigameType + "!");
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the schematic file that arenas of the given minigame type are built
+     * from.
+     * 
+     * @param minigameType - The name of the minigame type.
+     * @return The schematic file.
+     */
+    File getSchematicFile(String minigameType) {
+        // TODO Find a better way for store/load schematics.
+        var worldEdit = Bukkit.getPluginManager().getPlugin("WorldEdit");
+        var schematicFolder = new File(worldEdit.getDataFolder(), "schematics");
+        return new File(schematicFolder, minigameType + ".schem");
+    }
+
+    /**
+     * Generates an available MinigameID object for the given minigame type. The
+     * lowest instance ID that is not currently used by an arena, whether active or
+     * pooled, is returned.
+     * 
+     * @param minigameType - The name of the minigame type.
+     * @param typeID       - The type ID of the minigame.
+     * @return A new MinigameID.
+     */
+    private MinigameID generateID(String minigameType, int typeID) {
+        var instanceID = 0;
+
+        while (findArena(typeID, instanceID) != null)
+            instanceID++;
+
+        return new MinigameID(minigameType, typeID, instanceID);
+    }
+
+    /**
+     * Creates a warm pool of pre-built arenas for the given minigame type. Pooled
+     * arenas are built ahead of time, so that new minigame instances can be
+     * started in an arena that is already ready to play. Arenas released by
+     * finished minigames are reset and returned to the pool, rather than being
+     * built again from scratch. Even if the size is 0, one released arena is kept
+     * for the next minigame instance of this type.
+     * 
+     * @param minigameType - The name of the minigame type.
+     * @param typeID       - The type ID of the minigame.
+     * @param size         - The number of arenas to keep pre-built.
+     */
+    public void createWarmPool(String minigameType, int typeID, int size) {
+        warmPools.put(minigameType, new ArrayDeque<>());
+        warmPoolSizes.put(minigameType, Math.max(size, 0));
+        refillWarmPool(minigameType, typeID);
+    }
+
+    /**
+     * Creates and starts building new arenas for the given minigame type until its
+     * warm pool is full again. Arenas claimed by running minigames count towards
+     * the pool size, since they are returned to the pool once their minigame
+     * ends.
+     * 
+     * @param minigameType - The name of the minigame type.
+     * @param typeID       - The type ID of the minigame.
+     */
+    private void refillWarmPool(String minigameType, int typeID) {
+        var pool = warmPools.get(minigameType);
+        if (pool == null)
+            return;
+
+        int size = warmPoolSizes.get(minigameType);
+        while (pool.size() + claimedArenas.getOrDefault(minigameType, 0) < size) {
+            var arena = createArena(generateID(minigameType, typeID));
+            pool.add(arena);
+            arena.buildArena();
+        }
+    }
+
+    /**
+     * Takes an arena for a new minigame instance of the given type. If the type
+     * has a warm pool, a ready arena is taken from it where possible, falling back
+     * to an arena that is still being built. Otherwise, a new arena is created and
+     * building is started. The taken arena still counts towards the size of the
+     * warm pool, since it is reset and returned to the pool once its minigame has
+     * ended.
+     * <p>
+     * If the returned arena is already built, it is in the
+     * {@link ArenaState#ACTIVE} state and no {@link ArenaCompletedEvent} will be
+     * called for it.
+     * 
+     * @param minigameType - The name of the minigame type.
+     * @param typeID       - The type ID of the minigame.
+     * @return The arena to use. Its ID is used as the ID of the new minigame.
+     */
+    public Arena takeArena(String minigameType, int typeID) {
+        var arena = takeFromWarmPool(minigameType);
+
+        if (arena == null) {
+            arena = createArena(generateID(minigameType, typeID));
+            arena.buildArena();
+        }
+
+        if (warmPools.containsKey(minigameType))
+            runOnMainThread(() -> refillWarmPool(minigameType, typeID));
+
+        claim(arena);
+
+        if (arena.getState() == ArenaState.READY)
+            arena.setState(ArenaState.ACTIVE);
+        else if (arena.getState() == ArenaState.NOT_BUILT)
+            arena.buildArena();
 
         return arena;
     }
 
     /**
-     * Gets the arena with the corresponding location object. This checks for
-     * variable instance equality rather than matching coordinates.
+     * Removes the most ready arena from the warm pool of the given minigame type.
      * 
-     * @param location - The location instance to look for.
-     * @return
+     * @param minigameType - The name of the minigame type.
+     * @return The arena, or null if the pool is empty or does not exist.
      */
-    private Arena getArena(Location location) {
-        for (var arena : arenas)
-            if (arena.getLocation() == location)
+    private Arena takeFromWarmPool(String minigameType) {
+        var pool = warmPools.get(minigameType);
+        if (pool == null || pool.isEmpty())
+            return null;
+
+        for (var iterator = pool.iterator(); iterator.hasNext();) {
+            var arena = iterator.next();
+            if (arena.getState() == ArenaState.READY) {
+                iterator.remove();
                 return arena;
+            }
+        }
+
+        return pool.poll();
+    }
+
+    /**
+     * Marks the given arena as claimed by a minigame instance.
+     * 
+     * @param arena - The arena.
+     */
+    private void claim(Arena arena) {
+        if (arena.isClaimed())
+            return;
+
+        arena.setClaimed(true);
+        claimedArenas.merge(arena.getID().getMinigameType(), 1, Integer::sum);
+    }
+
+    /**
+     * Marks the given arena as no longer being claimed by a minigame instance.
+     * 
+     * @param arena - The arena.
+     */
+    private void unclaim(Arena arena) {
+        if (!arena.isClaimed())
+            return;
+
+        arena.setClaimed(false);
+        claimedArenas.merge(arena.getID().getMinigameType(), -1, Integer::sum);
+    }
+
+    /**
+     * Releases the given arena once the minigame using it has ended. If the
+     * minigame type has room in its warm pool, the arena is reset using its block
+     * journal and returned to the pool. Otherwise, the arena's schematic reference
+     * is released, and a new arena instance will be created the next time a
+     * minigame with the same ID requests one.
+     * 
+     * @param arena - The arena to release.
+     */
+    public void releaseArena(Arena arena) {
+        if (findArena(arena.getID().getTypeID(), arena.getID().getInstanceID()) != arena)
+            return;
+
+        unclaim(arena);
+
+        var minigameType = arena.getID().getMinigameType();
+        var pool = warmPools.get(minigameType);
+
+        if (pool != null && pool.size() < Math.max(warmPoolSizes.get(minigameType), 1)) {
+            arena.renewID();
+            pool.add(arena);
+            arena.resetArena();
+            return;
+        }
+
+        arenas.remove(arena);
+        arenasByID.remove(packID(arena.getID().getTypeID(), arena.getID().getInstanceID()));
+        var placement = arena.getPlacement();
+        if (placement != null) {
+            arenasByLocation.remove(packLocation(placement.getLocation()));
+            layout.free(placement);
+        }
+
+        arena.dispose();
+    }
+
+    /**
+     * Runs the given task on the server thread during the next tick. If the plugin
+     * has already been disabled, the task is discarded.
+     * 
+     * @param task - The task to run.
+     */
+    void runOnMainThread(Runnable task) {
+        if (!plugin.isEnabled())
+            return;
+
+        Bukkit.getScheduler().runTask(plugin, task);
+    }
+
+    /**
+     * Gets the plugin that owns this arena manager.
+     * 
+     * @return The plugin.
+     */
+    Plugin getPlugin() {
+        return plugin;
+    }
+
+    /**
+     * Gets the maximum number of changed blocks each arena records before
+     * requiring a full rebuild.
+     * 
+     * @return The block journal limit.
+     */
+    int getJournalLimit() {
+        return journalLimit;
+    }
+
+    /**
+     * Gets the scheduler that coordinates all arena builds and resets.
+     * 
+     * @return The build scheduler.
+     */
+    public ArenaBuildScheduler getBuildScheduler() {
+        return buildScheduler;
+    }
+
+    /**
+     * Shuts down the background schematic loader. Schematics that are still
+     * loading are abandoned.
+     */
+    public void dispose() {
+        schematicLoader.shutdownNow();
+    }
+
+    /**
+     * Sets aside space in the minigame world for the given arena, based on the
+     * size of its schematic. Called once the arena's schematic has been loaded, if
+     * the arena could not be placed when it was created, or if its schematic no
+     * longer fits the space that was set aside for it. Any previous placement of
+     * the arena is freed.
+     * 
+     * @param arena     - The arena to place.
+     * @param schematic - The arena's schematic.
+     * @return The placement for the arena.
+     */
+    ArenaPlacement placeArena(Arena arena, Schematic schematic) {
+        var previous = arena.getPlacement();
+        if (previous != null) {
+            arenasByLocation.remove(packLocation(previous.getLocation()));
+            layout.free(previous);
+        }
+
+        var placement = layout.allocate(arena.getID().getMinigameType(), schematic);
+        arenasByLocation.put(packLocation(placement.getLocation()), arena);
+        return placement;
+    }
+
+    /**
+     * Gets the layout that decides where arenas are built.
+     * 
+     * @return The arena layout.
+     */
+    public ArenaLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Gets the schematic cache shared by all arenas on this server.
+     * 
+     * @return The schematic cache.
+     */
+    public SchematicCache getSchematicCache() {
+        return schematicCache;
+    }
+
+    /**
+     * Gets the arena that is built at the given location. Locations in other
+     * worlds, such as schematics built by other plugins, are rejected without a
+     * lookup.
+     * 
+     * @param location - The build location to look for.
+     * @return The arena, or null if no arena is built at the given location.
+     */
+    private Arena getArena(Location location) {
+        if (location.getWorld() != world)
+            return null;
+
+        return arenasByLocation.get(packLocation(location));
+    }
+
+    /**
+     * Gets the active arena that contains the given block. Arena slots are aligned
+     * to whole chunks, so each chunk belongs to at most one arena and the arena
+     * is found with a single lookup. Blocks in other worlds are rejected without
+     * a lookup.
+     * 
+     * @param block - The block.
+     * @return The arena, or null if the block is not within an active arena.
+     */
+    private Arena getArenaAt(Block block) {
+        if (block.getWorld() != world)
+            return null;
+
+        var arena = arenasByChunk.get(packChunk(block.getX() >> 4, block.getZ() >> 4));
+        if (arena == null || arena.getState() != ArenaState.ACTIVE || !arena.contains(block))
+            return null;
+
+        return arena;
+    }
+
+    /**
+     * Records that the given chunk is covered by the given arena. Called by the
+     * arena once its bounds are known.
+     * 
+     * @param chunkX - The chunk X coordinate.
+     * @param chunkZ - The chunk Z coordinate.
+     * @param arena  - The arena.
+     */
+    void indexChunk(int chunkX, int chunkZ, Arena arena) {
+        arenasByChunk.put(packChunk(chunkX, chunkZ), arena);
+    }
+
+    /**
+     * Removes the given chunk from the chunk index, if it is still owned by the
+     * given arena.
+     * 
+     * @param chunkX - The chunk X coordinate.
+     * @param chunkZ - The chunk Z coordinate.
+     * @param arena  - The arena.
+     */
+    void unindexChunk(int chunkX, int chunkZ, Arena arena) {
+        var key = packChunk(chunkX, chunkZ);
+        if (arenasByChunk.get(key) == arena)
+            arenasByChunk.remove(key);
+    }
+
+    /**
+     * Records that the given block is about to change in whichever active arena
+     * contains it.
+     * 
+     * @param block - The block.
+     */
+    private void recordBlockChange(Block block) {
+        var arena = getArenaAt(block);
+        if (arena != null)
+            arena.recordBlockChange(block);
+    }
+
+    /**
+     * Records that the given blocks are about to change in whichever active arenas
+     * contain them.
+     * 
+     * @param blocks - The blocks.
+     */
+    private void recordBlockChanges(List<Block> blocks) {
+        Arena arena = null;
+
+        for (var block : blocks) {
+            if (arena == null || !arena.contains(block))
+                arena = getArenaAt(block);
+
+            if (arena != null)
+                arena.recordBlockChange(block);
+        }
+    }
+
+    /**
+     * Records that the block for the given state has changed from that state.
+     * 
+     * @param state - The original block state.
+     */
+    private void recordReplacedState(BlockState state) {
+        var block = state.getBlock();
+        var arena = getArenaAt(block);
+        if (arena != null)
+            arena.recordBlockChange(state);
+    }
 
-        return null;
+    /**
+     * Marks the given arena as built, and calls an ArenaCompletedEvent for it.
+     * 
+     * @param arena - The arena.
+     */
+    void markBuilt(Arena arena) {
+        arena.setState(arena.isClaimed() ? ArenaState.ACTIVE : ArenaState.READY);
+        arena.markBuildFinished();
+
+        var event = new ArenaCompletedEvent(arena);
+        Bukkit.getPluginManager().callEvent(event);
     }
 
     @EventHandler
@@ -92,9 +619,159 @@ public class ArenaManager implements Listener {
         if (arena == null)
             return;
 
-        arena.setState(ArenaState.READY);
+        // Always free the build slot, even if the arena has since moved on, so
+        // that a stale build can never hold a slot for good.
+        buildScheduler.onSchematicBuilt(arena);
+        if (arena.getState() != ArenaState.BUILDING)
+            return;
 
-        var event = new ArenaCompletedEvent(arena);
-        Bukkit.getPluginManager().callEvent(event);
+        arena.indexPlaceholders();
+        markBuilt(arena);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent e) {
+        recordBlockChange(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent e) {
+        if (e instanceof BlockMultiPlaceEvent multiPlace) {
+            for (var state : multiPlace.getReplacedBlockStates())
+                recordReplacedState(state);
+        } else {
+            recordReplacedState(e.getBlockReplacedState());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent e) {
+        recordBlockChange(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockIgnite(BlockIgniteEvent e) {
+        recordBlockChange(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent e) {
+        recordBlockChange(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent e) {
+        recordBlockChange(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFromTo(BlockFromToEvent e) {
+        recordBlockChange(e.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLeavesDecay(LeavesDecayEvent e) {
+        recordBlockChange(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent e) {
+        recordBlockChange(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent e) {
+        recordBlockChanges(e.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent e) {
+        recordBlockChange(e.getBlock());
+        recordBlockChanges(e.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent e) {
+        var direction = e.getDirection();
+        recordBlockChange(e.getBlock().getRelative(direction));
+
+        for (var block : e.getBlocks())
+            recordBlockChange(block.getRelative(direction));
+
+        recordBlockChanges(e.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent e) {
+        var direction = e.getDirection();
+        recordBlockChange(e.getBlock().getRelative(direction));
+        recordBlockChange(e.getBlock().getRelative(direction.getOppositeFace()));
+
+        for (var block : e.getBlocks())
+            recordBlockChange(block.getRelative(direction));
+
+        recordBlockChanges(e.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketEmpty(PlayerBucketEmptyEvent e) {
+        recordBlockChange(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketFill(PlayerBucketFillEvent e) {
+        recordBlockChange(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onStructureGrow(StructureGrowEvent e) {
+        for (var state : e.getBlocks())
+            recordBlockChange(state.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSignChange(SignChangeEvent e) {
+        recordBlockChange(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryOpen(InventoryOpenEvent e) {
+        recordInventoryChange(e.getInventory());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryMoveItem(InventoryMoveItemEvent e) {
+        recordInventoryChange(e.getSource());
+        recordInventoryChange(e.getDestination());
+    }
+
+    /**
+     * Records that the contents of the given container are about to change, so
+     * that they can be restored when its arena is reset. Inventories that do not
+     * belong to a block, such as player inventories and storage minecarts, are
+     * ignored.
+     * 
+     * @param inventory - The inventory of the container.
+     */
+    private void recordInventoryChange(Inventory inventory) {
+        var holder = inventory.getHolder(false);
+
+        if (holder instanceof DoubleChest chest) {
+            recordContainerChange(chest.getLeftSide());
+            recordContainerChange(chest.getRightSide());
+        } else {
+            recordContainerChange(holder);
+        }
+    }
+
+    /**
+     * Records that the contents of the given inventory holder are about to
+     * change, if the holder is a block.
+     * 
+     * @param holder - The inventory holder, or null.
+     */
+    private void recordContainerChange(InventoryHolder holder) {
+        if (holder instanceof BlockState state)
+            recordBlockChange(state.getBlock());
     }
 }
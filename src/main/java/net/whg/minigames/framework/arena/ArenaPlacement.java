@@ -0,0 +1,53 @@
+package net.whg.minigames.framework.arena;
+
+import org.bukkit.Location;
+
+/**
+ * The space within the minigame world that has been set aside for a single
+ * arena by the arena layout.
+ */
+public class ArenaPlacement {
+    private final ArenaSlotAllocator lane;
+    private final int slot;
+    private final Location location;
+
+    /**
+     * Creates a new arena placement.
+     *
+     * @param lane     - The lane the arena was placed in.
+     * @param slot     - The slot within the lane.
+     * @param location - The location to build the schematic at.
+     */
+    ArenaPlacement(ArenaSlotAllocator lane, int slot, Location location) {
+        this.lane = lane;
+        this.slot = slot;
+        this.location = location;
+    }
+
+    /**
+     * Gets the lane the arena was placed in.
+     *
+     * @return The lane.
+     */
+    ArenaSlotAllocator getLane() {
+        return lane;
+    }
+
+    /**
+     * Gets the slot within the lane that the arena was placed in.
+     *
+     * @return The slot index.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Gets the location to build the arena schematic at.
+     *
+     * @return The build location.
+     */
+    public Location getLocation() {
+        return location;
+    }
+}
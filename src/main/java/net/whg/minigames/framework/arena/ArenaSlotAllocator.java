@@ -0,0 +1,180 @@
+package net.whg.minigames.framework.arena;
+
+import java.util.BitSet;
+
+import org.bukkit.World;
+
+/**
+ * Hands out rectangular slots of the minigame world for arenas to be built in.
+ * Slots are laid out in rows on a grid, and the lowest free slot is always
+ * handed out first, so that slots freed by finished minigames are reused
+ * before the grid grows any further. Slot sizes are rounded up to the given
+ * alignment, such as whole chunks or whole region files, so that the number of
+ * chunks and region files touched by arenas is bound by the peak number of
+ * concurrent arenas rather than the total number of games played.
+ */
+public class ArenaSlotAllocator {
+    /**
+     * The width of a chunk, in blocks.
+     */
+    public static final int CHUNK_SIZE = 16;
+
+    /**
+     * The width of a region file, in blocks.
+     */
+    public static final int REGION_SIZE = 512;
+
+    /**
+     * Rounds the given value up to the next multiple of the alignment.
+     *
+     * @param value     - The value.
+     * @param alignment - The alignment.
+     * @return The aligned value.
+     */
+    static int align(int value, int alignment) {
+        return Math.floorDiv(value + alignment - 1, alignment) * alignment;
+    }
+
+    private final BitSet usedSlots = new BitSet();
+    private final World world;
+    private final int slotWidth;
+    private final int slotDepth;
+    private final int slotsPerRow;
+    private final int rows;
+    private final int originX;
+    private final int originZ;
+
+    /**
+     * Creates a new slot allocator.
+     *
+     * @param world        - The world to allocate slots in.
+     * @param minSlotWidth - The minimum size of each slot along the X axis, in
+     *                     blocks.
+     * @param minSlotDepth - The minimum size of each slot along the Z axis, in
+     *                     blocks.
+     * @param alignment    - The alignment to round slot sizes and the origin up
+     *                     to, in blocks.
+     * @param slotsPerRow  - The number of slots in each row of the grid.
+     * @param rows         - The number of rows in the grid.
+     * @param originX      - The X coordinate of the corner of the first slot.
+     * @param originZ      - The Z coordinate of the corner of the first slot.
+     */
+    public ArenaSlotAllocator(World world, int minSlotWidth, int minSlotDepth, int alignment, int slotsPerRow,
+            int rows, int originX, int originZ) {
+        this.world = world;
+        this.slotWidth = Math.max(align(minSlotWidth, alignment), alignment);
+        this.slotDepth = Math.max(align(minSlotDepth, alignment), alignment);
+        this.slotsPerRow = Math.max(slotsPerRow, 1);
+        this.rows = Math.max(rows, 1);
+        this.originX = align(originX, alignment);
+        this.originZ = align(originZ, alignment);
+    }
+
+    /**
+     * Allocates the lowest free slot.
+     *
+     * @return The slot index.
+     * @throws IllegalStateException If every slot in the grid is in use.
+     */
+    public int allocate() {
+        var slot = usedSlots.nextClearBit(0);
+        if (slot >= getCapacity())
+            throw new IllegalStateException("All arena slots are in use!");
+
+        usedSlots.set(slot);
+        return slot;
+    }
+
+    /**
+     * Gets whether every slot in the grid is in use.
+     *
+     * @return True if no more slots can be allocated.
+     */
+    public boolean isFull() {
+        return usedSlots.nextClearBit(0) >= getCapacity();
+    }
+
+    /**
+     * Gets the total number of slots in the grid.
+     *
+     * @return The number of slots.
+     */
+    public int getCapacity() {
+        return slotsPerRow * rows;
+    }
+
+    /**
+     * Gets the number of rows in the grid.
+     *
+     * @return The number of rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the given slot to the free list, allowing it to be reused by the
+     * next arena.
+     *
+     * @param slot - The slot index.
+     */
+    public void free(int slot) {
+        usedSlots.clear(slot);
+    }
+
+    /**
+     * Gets the X coordinate of the center of the given slot.
+     *
+     * @param slot - The slot index.
+     * @return The center X coordinate.
+     */
+    public int getCenterX(int slot) {
+        return originX + (slot % slotsPerRow) * slotWidth + slotWidth / 2;
+    }
+
+    /**
+     * Gets the Z coordinate of the center of the given slot.
+     *
+     * @param slot - The slot index.
+     * @return The center Z coordinate.
+     */
+    public int getCenterZ(int slot) {
+        return originZ + (slot / slotsPerRow) * slotDepth + slotDepth / 2;
+    }
+
+    /**
+     * Gets the world this allocator hands out slots in.
+     *
+     * @return The world.
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Gets the size of each slot along the X axis, in blocks.
+     *
+     * @return The slot width.
+     */
+    public int getSlotWidth() {
+        return slotWidth;
+    }
+
+    /**
+     * Gets the size of each slot along the Z axis, in blocks.
+     *
+     * @return The slot depth.
+     */
+    public int getSlotDepth() {
+        return slotDepth;
+    }
+
+    /**
+     * Gets the number of slots currently in use.
+     *
+     * @return The number of allocated slots.
+     */
+    public int getAllocatedSlots() {
+        return usedSlots.cardinality();
+    }
+}
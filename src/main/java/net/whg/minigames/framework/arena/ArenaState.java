@@ -1,8 +1,10 @@
 package net.whg.minigames.framework.arena;
 
 /**
- * The current state of an arena instance.
+ * The current state of an arena instance. Arenas waiting in a warm pool are
+ * {@link #READY} once built, while arenas in use by a minigame instance are
+ * {@link #ACTIVE} once built.
  */
 public enum ArenaState {
-    NOT_BUILT, BUILDING, READY, ACTIVE, NEEDS_REBUILD;
+    NOT_BUILT, LOADING, PREPARING, BUILDING, READY, ACTIVE, NEEDS_REBUILD;
 }
@@ -0,0 +1,218 @@
+package net.whg.minigames.framework.arena;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.TileState;
+import org.bukkit.block.data.BlockData;
+
+import net.whg.minigames.framework.utilities.LongObjectMap;
+
+/**
+ * Records the original state of every block that is changed within an arena
+ * during a match, keyed by packed block position. Only the first change to each
+ * block is recorded, so that restoring the journal returns the arena to exactly
+ * the state it was built in, without placing the entire schematic again.
+ * <p>
+ * Tile entities, such as chests, signs, and spawners, also have a full block
+ * state snapshot recorded, so that their contents are restored along with the
+ * block itself.
+ */
+public class BlockJournal {
+    /**
+     * Packs the given block coordinates into a single long, using the same layout
+     * as Minecraft's block positions.
+     *
+     * @param x - The block X coordinate.
+     * @param y - The block Y coordinate.
+     * @param z - The block Z coordinate.
+     * @return The packed block position.
+     */
+    public static long packPosition(int x, int y, int z) {
+        return ((x & 0x3FFFFFFL) << 38) | ((z & 0x3FFFFFFL) << 12) | (y & 0xFFFL);
+    }
+
+    /**
+     * Unpacks the X coordinate from a packed block position.
+     *
+     * @param pos - The packed block position.
+     * @return The block X coordinate.
+     */
+    private static int unpackX(long pos) {
+        return (int) (pos >> 38);
+    }
+
+    /**
+     * Unpacks the Y coordinate from a packed block position.
+     *
+     * @param pos - The packed block position.
+     * @return The block Y coordinate.
+     */
+    private static int unpackY(long pos) {
+        return (int) (pos << 52 >> 52);
+    }
+
+    /**
+     * Unpacks the Z coordinate from a packed block position.
+     *
+     * @param pos - The packed block position.
+     * @return The block Z coordinate.
+     */
+    private static int unpackZ(long pos) {
+        return (int) (pos << 26 >> 38);
+    }
+
+    private final LongObjectMap<BlockData> originals = new LongObjectMap<>(1024);
+    private final LongObjectMap<BlockState> tileStates = new LongObjectMap<>();
+    private final int limit;
+    private boolean overflowed;
+    private int cursor;
+    private int restoredBlocks;
+
+    /**
+     * Creates a new block journal.
+     *
+     * @param limit - The maximum number of blocks to record. Once this is
+     *              exceeded, the journal is marked as overflowed and the arena
+     *              must be fully rebuilt instead.
+     */
+    public BlockJournal(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Records the current state of the given block, if this is the first time it
+     * has been changed. This must be called before the block is modified.
+     *
+     * @param block - The block that is about to change.
+     */
+    public void record(Block block) {
+        if (block.getState(false) instanceof TileState)
+            record(block.getState());
+        else
+            record(block, block.getBlockData());
+    }
+
+    /**
+     * Records the given original block state, if this is the first time its block
+     * has been changed. If the state belongs to a tile entity, the state itself
+     * is kept so that the tile entity's contents can be restored. The state must
+     * be a snapshot.
+     *
+     * @param original - The block state before the change.
+     */
+    public void record(BlockState original) {
+        var block = original.getBlock();
+        var pos = packPosition(block.getX(), block.getY(), block.getZ());
+        if (overflowed || originals.containsKey(pos))
+            return;
+
+        record(block, original.getBlockData());
+        if (!overflowed && original instanceof TileState)
+            tileStates.put(pos, original);
+    }
+
+    /**
+     * Records the given original block data for a block, if this is the first time
+     * it has been changed. This is used when the block has already been modified
+     * in the world by the time the change is observed.
+     *
+     * @param block    - The block that was changed.
+     * @param original - The block data before the change.
+     */
+    public void record(Block block, BlockData original) {
+        if (overflowed)
+            return;
+
+        var pos = packPosition(block.getX(), block.getY(), block.getZ());
+        if (originals.containsKey(pos))
+            return;
+
+        if (originals.size() >= limit) {
+            overflowed = true;
+            originals.clear();
+            tileStates.clear();
+            return;
+        }
+
+        originals.put(pos, original);
+    }
+
+    /**
+     * Restores up to the given number of recorded blocks to their original state.
+     * Blocks are restored without applying physics. Call this repeatedly until it
+     * returns true to spread the work over multiple ticks.
+     *
+     * @param world     - The world the arena is in.
+     * @param maxBlocks - The maximum number of blocks to restore in this call.
+     * @return True if every recorded block has been restored. False if there are
+     *         more blocks remaining.
+     */
+    public boolean restore(World world, int maxBlocks) {
+        var restored = 0;
+
+        while (restored < maxBlocks) {
+            cursor = originals.nextSlot(cursor);
+            if (cursor < 0) {
+                clear();
+                return true;
+            }
+
+            var pos = originals.keyAt(cursor);
+            var tileState = tileStates.get(pos);
+
+            if (tileState != null)
+                tileState.update(true, false);
+            else
+                world.getBlockAt(unpackX(pos), unpackY(pos), unpackZ(pos)).setBlockData(originals.valueAt(cursor),
+                        false);
+
+            cursor++;
+            restored++;
+            restoredBlocks++;
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes all recorded blocks from this journal.
+     */
+    public void clear() {
+        originals.clear();
+        tileStates.clear();
+        overflowed = false;
+        cursor = 0;
+        restoredBlocks = 0;
+    }
+
+    /**
+     * Gets the number of blocks currently recorded in this journal.
+     *
+     * @return The number of changed blocks.
+     */
+    public int size() {
+        return originals.size();
+    }
+
+    /**
+     * Gets the number of recorded blocks that have been restored so far by the
+     * current reset.
+     *
+     * @return The number of restored blocks.
+     */
+    public int getRestoredBlocks() {
+        return restoredBlocks;
+    }
+
+    /**
+     * Gets whether more blocks were changed than this journal is able to record.
+     * If so, the arena can no longer be restored from this journal and must be
+     * fully rebuilt.
+     *
+     * @return True if this journal has overflowed.
+     */
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+}
@@ -0,0 +1,135 @@
+package net.whg.minigames.framework.arena;
+
+import net.whg.whsculpt.schematic.Schematic;
+
+/**
+ * A reference counted handle to a schematic that is shared between all arena
+ * instances of a single minigame type. The schematic is shared, and therefore
+ * must be treated as read-only by all holders.
+ */
+public class CachedSchematic {
+    private final SchematicCache cache;
+    private final String minigameType;
+    private final long lastModified;
+    private final Schematic schematic;
+    private PlaceholderIndex placeholders;
+    private int references;
+    private long lastReleased;
+
+    /**
+     * Creates a new cached schematic handle.
+     *
+     * @param cache        - The cache that owns this schematic.
+     * @param minigameType - The minigame type this schematic belongs to.
+     * @param lastModified - The modification time of the schematic file when it
+     *                     was loaded.
+     * @param schematic    - The loaded schematic.
+     */
+    CachedSchematic(SchematicCache cache, String minigameType, long lastModified, Schematic schematic) {
+        this.cache = cache;
+        this.minigameType = minigameType;
+        this.lastModified = lastModified;
+        this.schematic = schematic;
+        lastReleased = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the schematic. This object is shared between arenas and must not be
+     * modified.
+     *
+     * @return The schematic.
+     */
+    public Schematic getSchematic() {
+        return schematic;
+    }
+
+    /**
+     * Gets the minigame type this schematic belongs to.
+     *
+     * @return The minigame type name.
+     */
+    public String getMinigameType() {
+        return minigameType;
+    }
+
+    /**
+     * Gets the modification time of the schematic file at the time it was loaded.
+     *
+     * @return The file modification time, in milliseconds.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Gets the placeholder index for this schematic. The index is created the
+     * first time an arena is built from this schematic.
+     *
+     * @return The placeholder index, or null if no arena has been built from this
+     *         schematic yet.
+     */
+    public PlaceholderIndex getPlaceholders() {
+        return placeholders;
+    }
+
+    /**
+     * Sets the placeholder index for this schematic.
+     *
+     * @param placeholders - The placeholder index.
+     */
+    void setPlaceholders(PlaceholderIndex placeholders) {
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * Releases a reference to this schematic. This must be called exactly once for
+     * each time this schematic was acquired from the cache.
+     */
+    public void release() {
+        cache.release(this);
+    }
+
+    /**
+     * Increments the reference count of this schematic. Called by the cache while
+     * holding its lock.
+     */
+    void retain() {
+        references++;
+    }
+
+    /**
+     * Decrements the reference count of this schematic. Called by the cache while
+     * holding its lock.
+     *
+     * @return True if this schematic is no longer referenced. False otherwise.
+     */
+    boolean releaseReference() {
+        if (references <= 0)
+            throw new IllegalStateException("Schematic for " + minigameType + " has already been released!");
+
+        references--;
+        if (references > 0)
+            return false;
+
+        lastReleased = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * Gets the number of arenas currently using this schematic.
+     *
+     * @return The reference count.
+     */
+    int getReferences() {
+        return references;
+    }
+
+    /**
+     * Gets the time this schematic was last released by its final holder.
+     *
+     * @return The time, in milliseconds.
+     */
+    long getLastReleased() {
+        return lastReleased;
+    }
+}
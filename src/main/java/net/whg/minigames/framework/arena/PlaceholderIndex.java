@@ -0,0 +1,66 @@
+package net.whg.minigames.framework.arena;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.Location;
+
+/**
+ * The positions of all placeholder entities within a schematic, stored as
+ * offsets from the arena build location. The index is created once per cached
+ * schematic and shared between all arenas built from it, allowing placeholders
+ * to be resolved for any arena instance without searching the world.
+ */
+public class PlaceholderIndex {
+    private final Map<String, List<Location>> offsets = new HashMap<>();
+
+    /**
+     * Adds a placeholder to this index.
+     *
+     * @param name   - The name of the placeholder.
+     * @param offset - The offset of the placeholder from the arena build
+     *               location, including its rotation. The world is ignored.
+     */
+    void add(String name, Location offset) {
+        offsets.computeIfAbsent(name, k -> new ArrayList<>()).add(offset);
+    }
+
+    /**
+     * Resolves all placeholders with the given name for an arena built at the
+     * given location.
+     *
+     * @param name     - The name of the placeholder.
+     * @param location - The arena build location.
+     * @return A list of world locations for the placeholders.
+     */
+    public List<Location> resolve(String name, Location location) {
+        var list = offsets.get(name);
+        if (list == null)
+            return Collections.emptyList();
+
+        var resolved = new ArrayList<Location>(list.size());
+        for (var offset : list) {
+            resolved.add(new Location(location.getWorld(), location.getX() + offset.getX(),
+                    location.getY() + offset.getY(), location.getZ() + offset.getZ(), offset.getYaw(),
+                    offset.getPitch()));
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Gets the total number of placeholders in this index.
+     *
+     * @return The number of placeholders.
+     */
+    public int size() {
+        var size = 0;
+        for (var list : offsets.values())
+            size += list.size();
+
+        return size;
+    }
+}
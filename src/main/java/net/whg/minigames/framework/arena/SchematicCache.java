@@ -0,0 +1,177 @@
+package net.whg.minigames.framework.arena;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import net.whg.whsculpt.schematic.Schematic;
+
+/**
+ * A shared cache of loaded arena schematics. Each minigame type has at most one
+ * loaded schematic at a time, which is shared between all arena instances of
+ * that type. Schematics are reference counted, and are evicted once they have
+ * gone unused for the configured expiry time. If the schematic file is modified
+ * on disk, the next arena to request it will receive a freshly loaded copy.
+ * <p>
+ * Schematics are read and decoded on a background executor, so that loading a
+ * schematic never blocks the server thread.
+ */
+public class SchematicCache {
+    private final Map<String, CompletableFuture<CachedSchematic>> schematics = new HashMap<>();
+    private final Executor executor;
+    private final long expireTime;
+
+    /**
+     * Creates a new schematic cache.
+     *
+     * @param executor   - The executor to load schematics on.
+     * @param expireTime - The number of milliseconds an unused schematic is kept
+     *                   in memory before being evicted. If 0, schematics are
+     *                   evicted as soon as they are no longer used.
+     */
+    public SchematicCache(Executor executor, long expireTime) {
+        this.executor = executor;
+        this.expireTime = expireTime;
+    }
+
+    /**
+     * Gets the schematic for the given minigame type, loading it from the file in
+     * the background if it is not currently cached or if the file has been
+     * modified since it was last loaded. Once completed, the reference count of
+     * the returned schematic has been incremented, and it must be released by
+     * calling {@link CachedSchematic#release()} once it is no longer needed.
+     * <p>
+     * The returned future is completed on the loader thread, not the server
+     * thread.
+     *
+     * @param minigameType - The minigame type the schematic belongs to.
+     * @param file         - The schematic file.
+     * @return A future for the cached schematic. This future completes
+     *         exceptionally if the schematic file could not be loaded.
+     */
+    public CompletableFuture<CachedSchematic> acquireAsync(String minigameType, File file) {
+        return CompletableFuture.supplyAsync(() -> acquire(minigameType, file), executor);
+    }
+
+    /**
+     * Gets the schematic for the given minigame type, loading it on the calling
+     * thread if needed. If another thread is already loading the same schematic,
+     * this waits for that load to finish rather than loading it a second time.
+     *
+     * @param minigameType - The minigame type the schematic belongs to.
+     * @param file         - The schematic file.
+     * @return The cached schematic.
+     * @throws CompletionException If the schematic file could not be loaded.
+     */
+    private CachedSchematic acquire(String minigameType, File file) {
+        var lastModified = file.lastModified();
+        CompletableFuture<CachedSchematic> future;
+        var shouldLoad = false;
+
+        synchronized (this) {
+            future = schematics.get(minigameType);
+
+            if (future == null || isOutdated(future, lastModified)) {
+                // Arenas still holding an outdated schematic keep their own
+                // reference to it. It is simply no longer handed out to new arenas.
+                future = new CompletableFuture<>();
+                schematics.put(minigameType, future);
+                shouldLoad = true;
+            }
+        }
+
+        if (shouldLoad) {
+            try {
+                var schematic = Schematic.loadSchematic(file);
+                future.complete(new CachedSchematic(this, minigameType, lastModified, schematic));
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    schematics.remove(minigameType, future);
+                }
+
+                future.completeExceptionally(e);
+            }
+        }
+
+        var cached = future.join();
+
+        synchronized (this) {
+            cached.retain();
+        }
+
+        return cached;
+    }
+
+    /**
+     * Checks whether a finished schematic load can no longer be handed out,
+     * either because it failed or because the file has since been modified.
+     *
+     * @param future       - The schematic load.
+     * @param lastModified - The current modification time of the file.
+     * @return True if the schematic needs to be loaded again.
+     */
+    private static boolean isOutdated(CompletableFuture<CachedSchematic> future, long lastModified) {
+        if (!future.isDone())
+            return false;
+
+        if (future.isCompletedExceptionally())
+            return true;
+
+        return future.join().getLastModified() != lastModified;
+    }
+
+    /**
+     * Decrements the reference count of the given schematic. If the schematic is
+     * no longer used and the cache is configured to not keep unused schematics,
+     * it is evicted instantly.
+     *
+     * @param cached - The schematic to release.
+     */
+    synchronized void release(CachedSchematic cached) {
+        if (!cached.releaseReference())
+            return;
+
+        if (expireTime > 0)
+            return;
+
+        var future = schematics.get(cached.getMinigameType());
+        if (future != null && future.getNow(null) == cached)
+            schematics.remove(cached.getMinigameType());
+    }
+
+    /**
+     * Evicts all schematics that have not been used by any arena for longer than
+     * the configured expiry time. Schematics that are still loading are never
+     * evicted.
+     *
+     * @return The number of schematics that were evicted.
+     */
+    public synchronized int evictUnused() {
+        var now = System.currentTimeMillis();
+        var sizeBefore = schematics.size();
+
+        schematics.values().removeIf(future -> {
+            if (!future.isDone() || future.isCompletedExceptionally())
+                return false;
+
+            var cached = future.join();
+            return cached.getReferences() == 0 && now - cached.getLastReleased() >= expireTime;
+        });
+
+        return sizeBefore - schematics.size();
+    }
+
+    /**
+     * Gets the number of schematics currently held in this cache, including those
+     * that are still loading.
+     *
+     * @return The number of cached schematics.
+     */
+    public synchronized int size() {
+        return schematics.size();
+    }
+}
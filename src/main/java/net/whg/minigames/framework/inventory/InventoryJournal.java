@@ -0,0 +1,375 @@
+package net.whg.minigames.framework.inventory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.plugin.Plugin;
+
+import net.whg.minigames.framework.logging.FrameworkLogger;
+import net.whg.minigames.framework.logging.LogCategory;
+
+/**
+ * An append-only journal on disk of the inventories players had before joining
+ * a minigame. A snapshot is written when a player joins a minigame, and is
+ * marked as applied once their inventory has been given back. If the server
+ * stops before that happens, the snapshot is given back the next time the
+ * player logs in.
+ * <p>
+ * Each record is stored with its length and a CRC32 checksum, and reading stops
+ * at the first record that is incomplete or fails its checksum, so a crash
+ * during a write only loses that write. Records are written by a single
+ * background thread, which writes all queued records at once and syncs the file
+ * once per batch, so that joining a minigame never waits on the disk.
+ */
+public class InventoryJournal implements Listener {
+    private static final byte SNAPSHOT = 1;
+    private static final byte APPLIED = 2;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+    private static final long TRUNCATE_SIZE = 1024 * 1024;
+    private static final JournalRecord CLOSE = new JournalRecord(null, null);
+
+    private final Map<UUID, StoredInventory> unapplied = new HashMap<>();
+    private final BlockingQueue<JournalRecord> queue = new LinkedBlockingQueue<>();
+    private final Set<UUID> liveSnapshots = new HashSet<>();
+    private final File file;
+    private final Thread writer;
+    private FileChannel channel;
+
+    /**
+     * Creates a new inventory journal. Any snapshots left unapplied by a previous
+     * run are loaded, given back to players that are already online, and kept
+     * until the remaining players next log in.
+     *
+     * @param plugin - The plugin that owns this journal.
+     * @param file   - The journal file.
+     */
+    public InventoryJournal(Plugin plugin, File file) {
+        this.file = file;
+
+        try {
+            load();
+            compact();
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            Bukkit.getLogger().log(Level.SEVERE, e, () -> "Failed to open inventory journal " + file + "!");
+        }
+
+        liveSnapshots.addAll(unapplied.keySet());
+
+        writer = new Thread(this::runWriter, "HG-Minigames Inventory Journal");
+        writer.setDaemon(true);
+        writer.start();
+
+        for (var player : Bukkit.getOnlinePlayers())
+            restore(player);
+
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+    }
+
+    /**
+     * Captures the inventory of the given player and queues it to be written to
+     * the journal. This should be called right before the player's inventory is
+     * cleared to join a minigame.
+     *
+     * @param player - The player.
+     */
+    public void recordSnapshot(Player player) {
+        var inventory = StoredInventory.capture(player);
+        queue.add(new JournalRecord(inventory.getUUID(), inventory));
+    }
+
+    /**
+     * Queues a record noting that the given player's inventory has been given
+     * back, so that it is not restored again on their next login.
+     *
+     * @param player - The player.
+     */
+    public void recordApplied(Player player) {
+        queue.add(new JournalRecord(player.getUniqueId(), null));
+    }
+
+    /**
+     * Gets the number of snapshots from a previous run that are still waiting for
+     * their player to log in.
+     *
+     * @return The number of unapplied snapshots.
+     */
+    public int getUnappliedCount() {
+        return unapplied.size();
+    }
+
+    /**
+     * Writes all queued records and closes the journal file. Blocks until the
+     * writer thread has finished.
+     */
+    public void dispose() {
+        queue.add(CLOSE);
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent e) {
+        restore(e.getPlayer());
+    }
+
+    /**
+     * Gives back the inventory for the given player if they have an unapplied
+     * snapshot from a previous run.
+     *
+     * @param player - The player.
+     */
+    private void restore(Player player) {
+        var inventory = unapplied.remove(player.getUniqueId());
+        if (inventory == null)
+            return;
+
+        inventory.apply(player);
+        recordApplied(player);
+
+        FrameworkLogger.log.info(LogCategory.INVENTORY, "Restored the inventory of %s from before the last shutdown.",
+                player.getName());
+    }
+
+    /**
+     * Reads all valid records from the journal file, keeping the snapshots that
+     * were never marked as applied.
+     *
+     * @throws IOException If the file could not be read.
+     */
+    private void load() throws IOException {
+        if (!file.exists())
+            return;
+
+        try (var in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            var crc = new CRC32();
+
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+
+                    if (length <= 0 || length > MAX_RECORD_SIZE)
+                        break;
+
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum)
+                    break;
+
+                readRecord(payload);
+            }
+        }
+
+        if (!unapplied.isEmpty())
+            FrameworkLogger.log.info(LogCategory.INVENTORY, "Found %s inventory snapshots that were not restored.",
+                    unapplied.size());
+    }
+
+    /**
+     * Applies a single record from the journal file to the set of unapplied
+     * snapshots.
+     *
+     * @param payload - The record payload.
+     * @throws IOException If the payload could not be read.
+     */
+    private void readRecord(byte[] payload) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(payload));
+        var type = in.readByte();
+
+        if (type == SNAPSHOT) {
+            var inventory = StoredInventory.read(in);
+            unapplied.put(inventory.getUUID(), inventory);
+        } else if (type == APPLIED) {
+            unapplied.remove(new UUID(in.readLong(), in.readLong()));
+        }
+    }
+
+    /**
+     * Replaces the journal file with one that only contains the unapplied
+     * snapshots, dropping applied records and any incomplete tail left by a crash.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    private void compact() throws IOException {
+        var temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        file.getParentFile().mkdirs();
+
+        try (var out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (var inventory : unapplied.values())
+                writeFully(out, encode(new JournalRecord(inventory.getUUID(), inventory)));
+
+            out.force(true);
+        }
+
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * The main loop of the writer thread. Waits for records to be queued, then
+     * writes every record queued so far as a single batch.
+     */
+    private void runWriter() {
+        var batch = new ArrayList<JournalRecord>();
+
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+
+                var closing = batch.remove(CLOSE);
+                writeBatch(batch);
+                batch.clear();
+
+                if (closing)
+                    break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            if (channel != null)
+                channel.close();
+        } catch (IOException e) {
+            Bukkit.getLogger().log(Level.SEVERE, e, () -> "Failed to close inventory journal " + file + "!");
+        }
+    }
+
+    /**
+     * Writes the given records to the journal file and syncs it to disk. If no
+     * snapshots are left unapplied afterwards, the file is emptied so that it does
+     * not grow forever.
+     *
+     * @param batch - The records to write.
+     */
+    private void writeBatch(List<JournalRecord> batch) {
+        if (channel == null || batch.isEmpty())
+            return;
+
+        try {
+            var buffers = new ByteBuffer[batch.size()];
+            for (var i = 0; i < buffers.length; i++) {
+                var record = batch.get(i);
+                buffers[i] = encode(record);
+
+                if (record.inventory() != null)
+                    liveSnapshots.add(record.uuid());
+                else
+                    liveSnapshots.remove(record.uuid());
+            }
+
+            for (var buffer : buffers)
+                writeFully(channel, buffer);
+
+            channel.force(false);
+
+            if (liveSnapshots.isEmpty() && channel.size() > TRUNCATE_SIZE) {
+                channel.truncate(0);
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            Bukkit.getLogger().log(Level.SEVERE, e, () -> "Failed to write to inventory journal " + file + "!");
+        }
+    }
+
+    /**
+     * Encodes a record into its on-disk form, prefixed by its length and checksum.
+     *
+     * @param record - The record.
+     * @return A buffer containing the encoded record.
+     * @throws IOException If the record could not be encoded.
+     */
+    private static ByteBuffer encode(JournalRecord record) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+
+        if (record.inventory() != null) {
+            out.writeByte(SNAPSHOT);
+            record.inventory().write(out);
+        } else {
+            out.writeByte(APPLIED);
+            out.writeLong(record.uuid().getMostSignificantBits());
+            out.writeLong(record.uuid().getLeastSignificantBits());
+        }
+
+        var payload = bytes.toByteArray();
+        var crc = new CRC32();
+        crc.update(payload);
+
+        var buffer = ByteBuffer.allocate(payload.length + 8);
+        buffer.putInt(payload.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(payload);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Writes the entire buffer to the given channel.
+     *
+     * @param channel - The channel.
+     * @param buffer  - The buffer.
+     * @throws IOException If the buffer could not be written.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * A record waiting to be written by the writer thread.
+     *
+     * @param uuid      - The UUID of the player.
+     * @param inventory - The inventory snapshot, or null if this record marks the
+     *                  player's snapshot as applied.
+     */
+    private record JournalRecord(UUID uuid, StoredInventory inventory) {
+    }
+}
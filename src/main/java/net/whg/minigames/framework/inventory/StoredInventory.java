@@ -0,0 +1,132 @@
+package net.whg.minigames.framework.inventory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * A copy of a player's inventory and experience taken before they joined a
+ * minigame, in a form that can be written to the inventory journal. Item stacks
+ * are kept in their serialized form, so that snapshots can be written and read
+ * off of the server thread.
+ */
+public class StoredInventory {
+    /**
+     * Captures the current inventory and experience of the given player. This
+     * must be called on the server thread.
+     *
+     * @param player - The player.
+     * @return The stored inventory.
+     */
+    public static StoredInventory capture(Player player) {
+        var contents = player.getInventory().getContents();
+        var items = new byte[contents.length][];
+
+        for (var i = 0; i < contents.length; i++) {
+            if (contents[i] != null && !contents[i].getType().isAir())
+                items[i] = contents[i].serializeAsBytes();
+        }
+
+        return new StoredInventory(player.getUniqueId(), items, player.getLevel(), player.getExp());
+    }
+
+    /**
+     * Reads a stored inventory that was written with {@link #write(DataOutput)}.
+     *
+     * @param in - The input to read from.
+     * @return The stored inventory.
+     * @throws IOException If the data could not be read.
+     */
+    static StoredInventory read(DataInput in) throws IOException {
+        var uuid = new UUID(in.readLong(), in.readLong());
+        var level = in.readInt();
+        var exp = in.readFloat();
+
+        var items = new byte[in.readInt()][];
+        for (var i = 0; i < items.length; i++) {
+            var length = in.readInt();
+            if (length == 0)
+                continue;
+
+            items[i] = new byte[length];
+            in.readFully(items[i]);
+        }
+
+        return new StoredInventory(uuid, items, level, exp);
+    }
+
+    private final UUID uuid;
+    private final byte[][] items;
+    private final int level;
+    private final float exp;
+
+    /**
+     * Creates a new stored inventory.
+     *
+     * @param uuid  - The UUID of the player.
+     * @param items - The serialized item stacks, by slot. Empty slots are null.
+     * @param level - The experience level of the player.
+     * @param exp   - The experience progress of the player.
+     */
+    private StoredInventory(UUID uuid, byte[][] items, int level, float exp) {
+        this.uuid = uuid;
+        this.items = items;
+        this.level = level;
+        this.exp = exp;
+    }
+
+    /**
+     * Gets the UUID of the player this inventory belongs to.
+     *
+     * @return The player UUID.
+     */
+    public UUID getUUID() {
+        return uuid;
+    }
+
+    /**
+     * Replaces the inventory and experience of the given player with this stored
+     * inventory. This must be called on the server thread.
+     *
+     * @param player - The player.
+     */
+    public void apply(Player player) {
+        var contents = new ItemStack[items.length];
+        for (var i = 0; i < items.length; i++) {
+            if (items[i] != null)
+                contents[i] = ItemStack.deserializeBytes(items[i]);
+        }
+
+        player.getInventory().setContents(contents);
+        player.setLevel(level);
+        player.setExp(exp);
+    }
+
+    /**
+     * Writes this stored inventory to the given output.
+     *
+     * @param out - The output to write to.
+     * @throws IOException If the data could not be written.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+        out.writeInt(level);
+        out.writeFloat(exp);
+
+        out.writeInt(items.length);
+        for (var item : items) {
+            if (item == null) {
+                out.writeInt(0);
+                continue;
+            }
+
+            out.writeInt(item.length);
+            out.write(item);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package net.whg.minigames.framework.logging;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+
+/**
+ * The logger used by the minigame framework for informational messages on hot
+ * paths, such as players joining lobbies and teams. Messages below the level
+ * of their category are discarded before any formatting is done. All other
+ * messages are placed on a bounded queue, and formatted and written by a
+ * background thread. If the queue is full, the message is dropped rather than
+ * blocking the server thread, and the number of dropped messages is counted and
+ * reported.
+ * <p>
+ * Message arguments are formatted on the background thread, so they should be
+ * immutable values such as strings and numbers rather than live game objects.
+ */
+public class FrameworkLogger {
+    /**
+     * The framework logger instance.
+     */
+    public static final FrameworkLogger log = new FrameworkLogger();
+
+    private final int[] levels = new int[LogCategory.values().length];
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile BlockingQueue<LogEntry> queue;
+    private volatile Logger logger = Bukkit.getLogger();
+    private Thread writer;
+    private long reportedDrops;
+
+    /**
+     * Creates a new framework logger. All categories start at the INFO level, and
+     * messages are written synchronously until the logger is started.
+     */
+    private FrameworkLogger() {
+        for (var category : LogCategory.values())
+            levels[category.ordinal()] = Level.INFO.intValue();
+    }
+
+    /**
+     * Starts writing messages on a background thread.
+     *
+     * @param logger    - The logger to write messages to.
+     * @param queueSize - The maximum number of messages waiting to be written
+     *                  before new messages are dropped.
+     */
+    public synchronized void start(Logger logger, int queueSize) {
+        stop();
+
+        this.logger = logger;
+        queue = new ArrayBlockingQueue<>(Math.max(queueSize, 1));
+
+        writer = new Thread(this::runWriter, "HG-Minigames Logger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Writes all queued messages and stops the background thread. Messages logged
+     * afterwards are written synchronously.
+     */
+    public synchronized void stop() {
+        if (writer == null)
+            return;
+
+        var oldQueue = queue;
+        queue = null;
+        writer.interrupt();
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        writer = null;
+
+        // Messages offered by threads that read the queue before it was cleared
+        // may land after the writer's final drain, so write them here.
+        var remaining = new ArrayList<LogEntry>();
+        oldQueue.drainTo(remaining);
+        writeBatch(remaining);
+    }
+
+    /**
+     * Sets the minimum level of messages that are logged for the given category.
+     *
+     * @param category - The category.
+     * @param level    - The level. Use {@link Level#OFF} to disable the category.
+     */
+    public void setLevel(LogCategory category, Level level) {
+        levels[category.ordinal()] = level.intValue();
+    }
+
+    /**
+     * Checks whether messages of the given level are logged for the given
+     * category. This can be used to avoid computing expensive message arguments.
+     *
+     * @param category - The category.
+     * @param level    - The message level.
+     * @return True if the message would be logged. False otherwise.
+     */
+    public boolean isLoggable(LogCategory category, Level level) {
+        return level.intValue() >= levels[category.ordinal()];
+    }
+
+    /**
+     * Logs a debug message.
+     *
+     * @param category - The category of the message.
+     * @param format   - The message format string.
+     * @param args     - The format arguments.
+     */
+    public void debug(LogCategory category, String format, Object... args) {
+        log(category, Level.FINE, format, args);
+    }
+
+    /**
+     * Logs an informational message.
+     *
+     * @param category - The category of the message.
+     * @param format   - The message format string.
+     * @param args     - The format arguments.
+     */
+    public void info(LogCategory category, String format, Object... args) {
+        log(category, Level.INFO, format, args);
+    }
+
+    /**
+     * Logs a warning message.
+     *
+     * @param category - The category of the message.
+     * @param format   - The message format string.
+     * @param args     - The format arguments.
+     */
+    public void warning(LogCategory category, String format, Object... args) {
+        log(category, Level.WARNING, format, args);
+    }
+
+    /**
+     * Logs a message, if its level is enabled for its category.
+     *
+     * @param category - The category of the message.
+     * @param level    - The level of the message.
+     * @param format   - The message format string.
+     * @param args     - The format arguments.
+     */
+    public void log(LogCategory category, Level level, String format, Object... args) {
+        if (!isLoggable(category, level))
+            return;
+
+        var entry = new LogEntry(category, level, format, args);
+        var currentQueue = queue;
+
+        if (currentQueue == null) {
+            write(entry);
+            return;
+        }
+
+        if (!currentQueue.offer(entry))
+            dropped.incrementAndGet();
+    }
+
+    /**
+     * Gets the total number of messages that have been dropped because the queue
+     * was full.
+     *
+     * @return The number of dropped messages.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * The main loop of the writer thread. Once interrupted, any messages still
+     * queued are written before the thread exits.
+     */
+    private void runWriter() {
+        var currentQueue = queue;
+        var batch = new ArrayList<LogEntry>();
+
+        while (true) {
+            try {
+                batch.add(currentQueue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            currentQueue.drainTo(batch);
+            writeBatch(batch);
+        }
+
+        currentQueue.drainTo(batch);
+        writeBatch(batch);
+    }
+
+    /**
+     * Writes a batch of messages, followed by a warning if any messages have been
+     * dropped since the last report.
+     *
+     * @param batch - The messages to write. The list is cleared afterwards.
+     */
+    private void writeBatch(ArrayList<LogEntry> batch) {
+        for (var entry : batch)
+            write(entry);
+
+        batch.clear();
+
+        var drops = dropped.get();
+        if (drops > reportedDrops) {
+            logger.log(Level.WARNING, String.format("Dropped %s log messages because the log queue was full.",
+                    drops - reportedDrops));
+            reportedDrops = drops;
+        }
+    }
+
+    /**
+     * Formats and writes a single message.
+     *
+     * @param entry - The message.
+     */
+    private void write(LogEntry entry) {
+        var message = entry.args().length == 0 ? entry.format() : String.format(entry.format(), entry.args());
+        logger.log(entry.level(), "[" + entry.category() + "] " + message);
+    }
+
+    /**
+     * A message waiting to be formatted and written.
+     *
+     * @param category - The category of the message.
+     * @param level    - The level of the message.
+     * @param format   - The message format string.
+     * @param args     - The format arguments.
+     */
+    private record LogEntry(LogCategory category, Level level, String format, Object[] args) {
+    }
+}
@@ -0,0 +1,37 @@
+package net.whg.minigames.framework.logging;
+
+/**
+ * The parts of the minigame framework that log messages. Each category has its
+ * own log level, allowing noisy categories to be silenced on their own.
+ */
+public enum LogCategory {
+    /**
+     * Minigame instances starting, ending, and players joining or leaving them.
+     */
+    MINIGAME,
+
+    /**
+     * Players joining lobbies and being moved into minigame instances.
+     */
+    LOBBY,
+
+    /**
+     * Players joining or leaving teams.
+     */
+    TEAM,
+
+    /**
+     * Arenas being built, reset, or prepared.
+     */
+    ARENA,
+
+    /**
+     * Matchmaking passes.
+     */
+    MATCHMAKING,
+
+    /**
+     * The inventory journal.
+     */
+    INVENTORY
+}
@@ -0,0 +1,59 @@
+package net.whg.minigames.framework.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A metric that only ever counts up, such as the number of minigame instances
+ * that have been started. Counters may be incremented from any thread. A
+ * counter may instead read its value from a function, for totals that are
+ * already counted elsewhere.
+ */
+public class Counter {
+    private final LongAdder value = new LongAdder();
+    private final LongSupplier source;
+
+    /**
+     * Creates a new counter. Counters are created through a
+     * {@link MetricsRegistry}.
+     */
+    Counter() {
+        this(null);
+    }
+
+    /**
+     * Creates a new counter that reads its value from the given function.
+     * 
+     * @param source - The function returning the current total, or null if the
+     *               counter is incremented directly. Must be safe to call from
+     *               any thread.
+     */
+    Counter(LongSupplier source) {
+        this.source = source;
+    }
+
+    /**
+     * Increments this counter by one.
+     */
+    public void increment() {
+        value.increment();
+    }
+
+    /**
+     * Increments this counter by the given amount.
+     * 
+     * @param amount - The amount to add. Must not be negative.
+     */
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    /**
+     * Gets the current value of this counter.
+     * 
+     * @return The value.
+     */
+    public long get() {
+        return source == null ? value.sum() : source.getAsLong();
+    }
+}
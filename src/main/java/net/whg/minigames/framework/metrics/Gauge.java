@@ -0,0 +1,40 @@
+package net.whg.minigames.framework.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A metric whose value is read from the server state, such as the number of
+ * players currently in a minigame. Since that state may only be read on the
+ * server thread, the value is sampled there and the last sample is what is
+ * reported to other threads.
+ */
+public class Gauge {
+    private final LongSupplier supplier;
+    private volatile long value;
+
+    /**
+     * Creates a new gauge. Gauges are created through a {@link MetricsRegistry}.
+     * 
+     * @param supplier - The function that reads the current value.
+     */
+    Gauge(LongSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * Reads the current value of this gauge. Must be called on the server
+     * thread.
+     */
+    void sample() {
+        value = supplier.getAsLong();
+    }
+
+    /**
+     * Gets the value of this gauge when it was last sampled.
+     * 
+     * @return The value.
+     */
+    public long get() {
+        return value;
+    }
+}
@@ -0,0 +1,124 @@
+package net.whg.minigames.framework.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations with power of two bucket sizes. Bucket {@code i}
+ * counts durations from {@code 2^i} up to {@code 2^(i+1)} microseconds, so
+ * recording a duration is a single leading zero count and an atomic increment,
+ * and the histogram covers everything from microseconds to days in a fixed
+ * amount of memory. Percentiles are reported as the upper bound of the bucket
+ * they fall into, so they may be up to twice the true value.
+ * <p>
+ * Durations may be recorded from any thread.
+ */
+public class LatencyHistogram {
+    /**
+     * The number of buckets. The last bucket also holds every duration longer than
+     * its lower bound, roughly 6 days.
+     */
+    static final int BUCKETS = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Creates a new histogram. Histograms are created through a
+     * {@link MetricsRegistry}.
+     */
+    LatencyHistogram() {
+    }
+
+    /**
+     * Records a duration.
+     * 
+     * @param nanos - The duration, in nanoseconds.
+     */
+    public void record(long nanos) {
+        var micros = Math.max(nanos, 0L) / 1000L;
+        var bucket = Math.min(63 - Long.numberOfLeadingZeros(micros | 1L), BUCKETS - 1);
+
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        sum.add(micros);
+    }
+
+    /**
+     * Records the time that has passed since the given start time.
+     * 
+     * @param startNanos - The start time, as returned by
+     *                   {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Gets the number of durations that have been recorded.
+     * 
+     * @return The number of durations.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of all durations that have been recorded.
+     * 
+     * @return The sum, in seconds.
+     */
+    public double getSumSeconds() {
+        return sum.sum() / 1_000_000.0;
+    }
+
+    /**
+     * Gets the number of durations recorded in the given bucket.
+     * 
+     * @param bucket - The bucket index.
+     * @return The number of durations.
+     */
+    long getBucketCount(int bucket) {
+        return buckets.get(bucket);
+    }
+
+    /**
+     * Gets the upper bound of the given bucket.
+     * 
+     * @param bucket - The bucket index.
+     * @return The upper bound, in seconds.
+     */
+    static double getUpperBoundSeconds(int bucket) {
+        return (1L << (bucket + 1)) / 1_000_000.0;
+    }
+
+    /**
+     * Estimates the given percentile of all recorded durations.
+     * 
+     * @param percentile - The percentile, from 0 to 1.
+     * @return The upper bound of the bucket containing the percentile, in seconds,
+     *         or 0 if no durations have been recorded.
+     */
+    public double getPercentileSeconds(double percentile) {
+        var total = 0L;
+        var counts = new long[BUCKETS];
+        for (var i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        if (total == 0)
+            return 0;
+
+        var rank = Math.max((long) Math.ceil(percentile * total), 1L);
+        var seen = 0L;
+        for (var i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return getUpperBoundSeconds(i);
+        }
+
+        return getUpperBoundSeconds(BUCKETS - 1);
+    }
+}
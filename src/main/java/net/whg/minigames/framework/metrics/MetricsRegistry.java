@@ -0,0 +1,299 @@
+package net.whg.minigames.framework.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A collection of named metrics that can be written in the Prometheus text
+ * format. Each metric name may have multiple instances, told apart by their
+ * labels, such as one gauge per minigame type. Metrics are created once and then
+ * kept by whoever updates them, so updating a metric never looks anything up in
+ * the registry.
+ */
+public class MetricsRegistry {
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Gets or creates a counter.
+     * 
+     * @param name   - The metric name. Should end with "_total".
+     * @param help   - A description of the metric.
+     * @param labels - Alternating label names and values.
+     * @return The counter.
+     * @throws IllegalArgumentException If a metric of another type already exists
+     *                                  with the given name.
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) getFamily(name, help, "counter").metrics.computeIfAbsent(formatLabels(labels),
+                k -> new Counter());
+    }
+
+    /**
+     * Gets or creates a counter that reads its value from the given function, for
+     * totals that are already counted elsewhere.
+     * 
+     * @param name   - The metric name. Should end with "_total".
+     * @param help   - A description of the metric.
+     * @param source - The function returning the current total. Must be safe to
+     *               call from any thread.
+     * @param labels - Alternating label names and values.
+     * @return The counter.
+     * @throws IllegalArgumentException If a metric of another type already exists
+     *                                  with the given name.
+     */
+    public Counter counter(String name, String help, LongSupplier source, String... labels) {
+        return (Counter) getFamily(name, help, "counter").metrics.computeIfAbsent(formatLabels(labels),
+                k -> new Counter(source));
+    }
+
+    /**
+     * Gets or creates a gauge. If the gauge already exists, its supplier is not
+     * replaced.
+     * 
+     * @param name     - The metric name.
+     * @param help     - A description of the metric.
+     * @param supplier - The function that reads the current value. Called on the
+     *                 server thread only.
+     * @param labels   - Alternating label names and values.
+     * @return The gauge.
+     * @throws IllegalArgumentException If a metric of another type already exists
+     *                                  with the given name.
+     */
+    public Gauge gauge(String name, String help, LongSupplier supplier, String... labels) {
+        return (Gauge) getFamily(name, help, "gauge").metrics.computeIfAbsent(formatLabels(labels),
+                k -> new Gauge(supplier));
+    }
+
+    /**
+     * Gets or creates a latency histogram.
+     * 
+     * @param name   - The metric name. Should end with "_seconds".
+     * @param help   - A description of the metric.
+     * @param labels - Alternating label names and values.
+     * @return The histogram.
+     * @throws IllegalArgumentException If a metric of another type already exists
+     *                                  with the given name.
+     */
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) getFamily(name, help, "histogram").metrics.computeIfAbsent(formatLabels(labels),
+                k -> new LatencyHistogram());
+    }
+
+    /**
+     * Samples the current value of every gauge. Must be called on the server
+     * thread.
+     */
+    public void sampleGauges() {
+        for (var family : families.values()) {
+            for (var metric : family.metrics.values()) {
+                if (metric instanceof Gauge gauge)
+                    gauge.sample();
+            }
+        }
+    }
+
+    /**
+     * Gets the value of every counter, keyed by name and labels.
+     * 
+     * @return A map of counter values.
+     */
+    public Map<String, Long> getCounterValues() {
+        return collect(Counter.class, Counter::get);
+    }
+
+    /**
+     * Gets the last sampled value of every gauge, keyed by name and labels.
+     * 
+     * @return A map of gauge values.
+     */
+    public Map<String, Long> getGaugeValues() {
+        return collect(Gauge.class, Gauge::get);
+    }
+
+    /**
+     * Gets the median, 99th percentile, and count of every histogram, keyed by
+     * name and labels followed by ".p50", ".p99", or ".count".
+     * 
+     * @return A map of histogram summaries.
+     */
+    public Map<String, Double> getHistogramSummaries() {
+        var values = new TreeMap<String, Double>();
+        for (var family : families.values()) {
+            family.metrics.forEach((labels, metric) -> {
+                if (!(metric instanceof LatencyHistogram histogram))
+                    return;
+
+                var key = family.name + labels;
+                values.put(key + ".p50", histogram.getPercentileSeconds(0.5));
+                values.put(key + ".p99", histogram.getPercentileSeconds(0.99));
+                values.put(key + ".count", (double) histogram.getCount());
+            });
+        }
+
+        return values;
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format.
+     * 
+     * @return The formatted metrics.
+     */
+    public String toPrometheusText() {
+        var out = new StringBuilder();
+
+        for (var family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+
+            family.metrics.forEach((labels, metric) -> {
+                if (metric instanceof Counter counter)
+                    appendSample(out, family.name, labels, counter.get());
+                else if (metric instanceof Gauge gauge)
+                    appendSample(out, family.name, labels, gauge.get());
+                else if (metric instanceof LatencyHistogram histogram)
+                    appendHistogram(out, family.name, labels, histogram);
+            });
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Writes the buckets, sum, and count of a histogram. Buckets are cumulative,
+     * and trailing empty buckets are left out since the "+Inf" bucket already
+     * covers them.
+     * 
+     * @param out       - The output to write to.
+     * @param name      - The metric name.
+     * @param labels    - The formatted labels.
+     * @param histogram - The histogram.
+     */
+    private void appendHistogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        var counts = new long[LatencyHistogram.BUCKETS];
+        var last = -1;
+        for (var i = 0; i < counts.length; i++) {
+            counts[i] = histogram.getBucketCount(i);
+            if (counts[i] > 0)
+                last = i;
+        }
+
+        var prefix = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+        var total = 0L;
+        for (var i = 0; i < counts.length; i++) {
+            total += counts[i];
+
+            // The last bucket has no upper bound, so it is only part of "+Inf".
+            if (i <= last && i < counts.length - 1)
+                appendSample(out, name + "_bucket",
+                        prefix + "le=\"" + LatencyHistogram.getUpperBoundSeconds(i) + "\"}", total);
+        }
+
+        appendSample(out, name + "_bucket", prefix + "le=\"+Inf\"}", total);
+        appendSample(out, name + "_sum", labels, histogram.getSumSeconds());
+        appendSample(out, name + "_count", labels, total);
+    }
+
+    /**
+     * Writes a single sample line.
+     * 
+     * @param out    - The output to write to.
+     * @param name   - The sample name.
+     * @param labels - The formatted labels.
+     * @param value  - The sample value.
+     */
+    private void appendSample(StringBuilder out, String name, String labels, Object value) {
+        out.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Collects the value of every metric of the given type, keyed by name and
+     * labels.
+     * 
+     * @param <T>    - The metric type.
+     * @param type   - The metric class.
+     * @param reader - The function that reads the metric value.
+     * @return A map of metric values.
+     */
+    private <T> Map<String, Long> collect(Class<T> type, Function<T, Long> reader) {
+        var values = new TreeMap<String, Long>();
+        for (var family : families.values()) {
+            family.metrics.forEach((labels, metric) -> {
+                if (type.isInstance(metric))
+                    values.put(family.name + labels, reader.apply(type.cast(metric)));
+            });
+        }
+
+        return values;
+    }
+
+    /**
+     * Gets or creates the family of metrics with the given name.
+     * 
+     * @param name - The metric name.
+     * @param help - A description of the metric.
+     * @param type - The Prometheus metric type.
+     * @return The metric family.
+     * @throws IllegalArgumentException If the family already exists with another
+     *                                  type.
+     */
+    private Family getFamily(String name, String help, String type) {
+        var family = families.computeIfAbsent(name, k -> new Family(name, help, type));
+        if (!family.type.equals(type))
+            throw new IllegalArgumentException("Metric '" + name + "' is already registered as a " + family.type
+                    + "!");
+
+        return family;
+    }
+
+    /**
+     * Formats the given labels for the Prometheus text format.
+     * 
+     * @param labels - Alternating label names and values.
+     * @return The formatted labels, or an empty string if there are no labels.
+     * @throws IllegalArgumentException If a label name has no value.
+     */
+    private static String formatLabels(String... labels) {
+        if (labels.length == 0)
+            return "";
+
+        if (labels.length % 2 != 0)
+            throw new IllegalArgumentException("Labels must be given as name and value pairs!");
+
+        var out = new StringBuilder("{");
+        for (var i = 0; i < labels.length; i += 2) {
+            if (i > 0)
+                out.append(',');
+
+            var value = labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+            out.append(labels[i]).append("=\"").append(value).append('"');
+        }
+
+        return out.append('}').toString();
+    }
+
+    /**
+     * All metrics sharing a single name, keyed by their formatted labels.
+     */
+    private static class Family {
+        private final Map<String, Object> metrics = new ConcurrentSkipListMap<>();
+        private final String name;
+        private final String help;
+        private final String type;
+
+        /**
+         * Creates a new metric family.
+         * 
+         * @param name - The metric name.
+         * @param help - A description of the metric.
+         * @param type - The Prometheus metric type.
+         */
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
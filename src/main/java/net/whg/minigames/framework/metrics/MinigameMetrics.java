@@ -0,0 +1,289 @@
+package net.whg.minigames.framework.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import net.whg.minigames.framework.logging.FrameworkLogger;
+
+/**
+ * The metrics collected by the minigame framework. This covers how long players
+ * wait in lobbies, how long arenas take to build, how long joining and tearing
+ * down minigame instances take, and how many instances and players are active
+ * for each minigame type.
+ * <p>
+ * Metrics are published in three ways. The {@code /mg stats} command shows a
+ * summary in game, the metrics are registered as an MXBean for JMX clients, and
+ * every export interval they are written to a file in the Prometheus text
+ * format for a node exporter or similar agent to pick up.
+ */
+public class MinigameMetrics implements MinigameMetricsMXBean {
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final Map<String, TypeMetrics> types = new LinkedHashMap<>();
+    private final LatencyHistogram lobbyWait;
+    private final LatencyHistogram arenaBuild;
+    private final LatencyHistogram join;
+    private final LatencyHistogram teardown;
+    private final Counter matchmakingPlacements;
+    private final Plugin plugin;
+    private final File file;
+    private ObjectName objectName;
+
+    /**
+     * Creates a new set of minigame metrics.
+     * 
+     * @param plugin - The plugin that owns these metrics.
+     * @param file   - The file to export metrics to, or null if metrics should not
+     *               be written to a file.
+     */
+    public MinigameMetrics(Plugin plugin, File file) {
+        this.plugin = plugin;
+        this.file = file;
+
+        lobbyWait = registry.histogram("minigames_lobby_wait_seconds",
+                "Time players spent waiting in a lobby before being placed into a minigame instance.");
+        arenaBuild = registry.histogram("minigames_arena_build_seconds",
+                "Time from an arena build being started until the arena was completed.");
+        join = registry.histogram("minigames_join_seconds", "Time taken to add a player to a minigame instance.");
+        teardown = registry.histogram("minigames_teardown_seconds",
+                "Time taken to end a minigame instance and release its arena.");
+        matchmakingPlacements = registry.counter("minigames_matchmaking_placements_total",
+                "Players placed into minigame instances by matchmaking.");
+        registry.counter("minigames_log_messages_dropped_total",
+                "Log messages dropped because the log queue was full.", FrameworkLogger.log::getDroppedCount);
+    }
+
+    /**
+     * Starts publishing metrics over JMX and sampling gauges on a timer. If a file
+     * was given, the metrics are also exported to that file each time the gauges
+     * are sampled.
+     * 
+     * @param exportInterval - The number of ticks between exports.
+     */
+    public void start(long exportInterval) {
+        registerMXBean();
+        Bukkit.getScheduler().runTaskTimer(plugin, this::export, exportInterval, exportInterval);
+    }
+
+    /**
+     * Stops publishing metrics over JMX.
+     */
+    public void dispose() {
+        if (objectName == null)
+            return;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            Bukkit.getLogger().log(Level.WARNING, e, () -> "Failed to unregister minigame metrics MXBean!");
+        }
+
+        objectName = null;
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server. An MXBean left over
+     * from a previous plugin instance is replaced.
+     */
+    private void registerMXBean() {
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var name = new ObjectName("net.whg.minigames:type=MinigameMetrics");
+
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+
+            server.registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            Bukkit.getLogger().log(Level.WARNING, e, () -> "Failed to register minigame metrics MXBean!");
+        }
+    }
+
+    /**
+     * Samples all gauges on the server thread, then writes the metrics file in
+     * the background if there is one.
+     */
+    private void export() {
+        registry.sampleGauges();
+        if (file == null)
+            return;
+
+        var text = registry.toPrometheusText();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> writeFile(text));
+    }
+
+    /**
+     * Writes the given text to the metrics file. The text is written to a
+     * temporary file first and moved into place, so readers never see a partially
+     * written file.
+     * 
+     * @param text - The text to write.
+     */
+    private void writeFile(String text) {
+        var temp = new File(file.getPath() + ".tmp");
+
+        try {
+            Files.writeString(temp.toPath(), text, StandardCharsets.UTF_8);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Bukkit.getLogger().log(Level.WARNING, e, () -> "Failed to write minigame metrics to " + file + "!");
+        }
+    }
+
+    /**
+     * Adds the per-type metrics for a newly registered minigame type.
+     * 
+     * @param name         - The name of the minigame type.
+     * @param instances    - A function returning the number of active instances.
+     * @param players      - A function returning the number of players in active
+     *                     instances.
+     * @param lobbyPlayers - A function returning the number of players waiting in
+     *                     the lobby.
+     */
+    public void registerMinigameType(String name, LongSupplier instances, LongSupplier players,
+            LongSupplier lobbyPlayers) {
+        var metrics = new TypeMetrics(name,
+                registry.counter("minigames_instances_started_total", "Minigame instances started.", "minigame",
+                        name),
+                registry.gauge("minigames_active_instances", "Minigame instances currently running.", instances,
+                        "minigame", name),
+                registry.gauge("minigames_active_players", "Players currently in a minigame instance.", players,
+                        "minigame", name),
+                registry.gauge("minigames_lobby_players", "Players currently waiting in a lobby.", lobbyPlayers,
+                        "minigame", name));
+
+        types.put(name, metrics);
+    }
+
+    /**
+     * Gets the per-type metrics for the given minigame type.
+     * 
+     * @param name - The name of the minigame type.
+     * @return The metrics, or null if the type has not been registered.
+     */
+    public TypeMetrics getMinigameType(String name) {
+        return types.get(name);
+    }
+
+    /**
+     * Gets the per-type metrics for every registered minigame type.
+     * 
+     * @return A read-only collection of per-type metrics.
+     */
+    public Collection<TypeMetrics> getMinigameTypes() {
+        return Collections.unmodifiableCollection(types.values());
+    }
+
+    /**
+     * Samples all gauges. Must be called on the server thread.
+     */
+    public void sampleGauges() {
+        registry.sampleGauges();
+    }
+
+    /**
+     * Gets the histogram of how long players waited in a lobby before being placed
+     * into a minigame instance.
+     * 
+     * @return The lobby wait histogram.
+     */
+    public LatencyHistogram getLobbyWait() {
+        return lobbyWait;
+    }
+
+    /**
+     * Gets the histogram of how long arenas took from starting to build until
+     * they were completed.
+     * 
+     * @return The arena build histogram.
+     */
+    public LatencyHistogram getArenaBuild() {
+        return arenaBuild;
+    }
+
+    /**
+     * Gets the histogram of how long adding a player to a minigame instance took.
+     * 
+     * @return The join histogram.
+     */
+    public LatencyHistogram getJoin() {
+        return join;
+    }
+
+    /**
+     * Gets the histogram of how long ending a minigame instance took.
+     * 
+     * @return The teardown histogram.
+     */
+    public LatencyHistogram getTeardown() {
+        return teardown;
+    }
+
+    /**
+     * Gets the counter of players placed into minigame instances by matchmaking.
+     * 
+     * @return The placement counter.
+     */
+    public Counter getMatchmakingPlacements() {
+        return matchmakingPlacements;
+    }
+
+    /**
+     * Gets the registry holding all of these metrics.
+     * 
+     * @return The metrics registry.
+     */
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        return registry.getCounterValues();
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        return registry.getGaugeValues();
+    }
+
+    @Override
+    public Map<String, Double> getLatencies() {
+        return registry.getHistogramSummaries();
+    }
+
+    @Override
+    public String getPrometheusText() {
+        return registry.toPrometheusText();
+    }
+
+    /**
+     * The metrics kept for a single minigame type.
+     * 
+     * @param name             - The name of the minigame type.
+     * @param instancesStarted - The number of instances that have been started.
+     * @param activeInstances  - The number of instances currently running.
+     * @param activePlayers    - The number of players in running instances.
+     * @param lobbyPlayers     - The number of players waiting in the lobby.
+     */
+    public record TypeMetrics(String name, Counter instancesStarted, Gauge activeInstances, Gauge activePlayers,
+            Gauge lobbyPlayers) {
+    }
+}
@@ -0,0 +1,38 @@
+package net.whg.minigames.framework.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface through which minigame metrics are published over
+ * JMX.
+ */
+public interface MinigameMetricsMXBean {
+    /**
+     * Gets the value of every counter, keyed by name and labels.
+     * 
+     * @return A map of counter values.
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Gets the last sampled value of every gauge, keyed by name and labels.
+     * 
+     * @return A map of gauge values.
+     */
+    Map<String, Long> getGauges();
+
+    /**
+     * Gets the median, 99th percentile, and count of every latency histogram.
+     * Percentiles are in seconds.
+     * 
+     * @return A map of latency summaries.
+     */
+    Map<String, Double> getLatencies();
+
+    /**
+     * Gets every metric in the Prometheus text exposition format.
+     * 
+     * @return The formatted metrics.
+     */
+    String getPrometheusText();
+}
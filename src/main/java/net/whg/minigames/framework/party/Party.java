@@ -0,0 +1,123 @@
+package net.whg.minigames.framework.party;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+
+/**
+ * A group of players that queue for minigames together. A party joins lobbies
+ * as a single unit, is only placed into a minigame instance that has room for
+ * all of its members, and is kept together when teams are assigned.
+ */
+public class Party {
+    private final Map<UUID, Player> members = new LinkedHashMap<>();
+    private final Set<UUID> invites = new HashSet<>();
+    private Player leader;
+
+    /**
+     * Creates a new party with the given leader as its only member.
+     *
+     * @param leader - The party leader.
+     */
+    Party(Player leader) {
+        this.leader = leader;
+        members.put(leader.getUniqueId(), leader);
+    }
+
+    /**
+     * Gets the leader of this party. Only the leader may invite players or join
+     * minigames for the party.
+     *
+     * @return The party leader.
+     */
+    public Player getLeader() {
+        return leader;
+    }
+
+    /**
+     * Gets whether the given player is the leader of this party.
+     *
+     * @param player - The player.
+     * @return True if the player is the party leader. False otherwise.
+     */
+    public boolean isLeader(Player player) {
+        return leader.getUniqueId().equals(player.getUniqueId());
+    }
+
+    /**
+     * Gets whether the given player is a member of this party.
+     *
+     * @param player - The player.
+     * @return True if the player is in this party. False otherwise.
+     */
+    public boolean contains(Player player) {
+        return members.containsKey(player.getUniqueId());
+    }
+
+    /**
+     * Gets all members of this party, starting with the leader.
+     *
+     * @return A read-only list of party members.
+     */
+    public List<Player> getMembers() {
+        return Collections.unmodifiableList(new ArrayList<>(members.values()));
+    }
+
+    /**
+     * Gets the number of players in this party.
+     *
+     * @return The party size.
+     */
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * Adds an invite for the given player to join this party.
+     *
+     * @param player - The invited player.
+     */
+    void invite(Player player) {
+        invites.add(player.getUniqueId());
+    }
+
+    /**
+     * Gets whether the given player has been invited to this party.
+     *
+     * @param player - The player.
+     * @return True if the player has a pending invite. False otherwise.
+     */
+    boolean isInvited(Player player) {
+        return invites.contains(player.getUniqueId());
+    }
+
+    /**
+     * Adds a player to this party, consuming their invite.
+     *
+     * @param player - The player to add.
+     */
+    void addMember(Player player) {
+        invites.remove(player.getUniqueId());
+        members.put(player.getUniqueId(), player);
+    }
+
+    /**
+     * Removes a player from this party. If the player was the leader, the longest
+     * standing member becomes the new leader.
+     *
+     * @param player - The player to remove.
+     */
+    void removeMember(Player player) {
+        members.remove(player.getUniqueId());
+
+        if (isLeader(player) && !members.isEmpty())
+            leader = members.values().iterator().next();
+    }
+}
@@ -0,0 +1,162 @@
+package net.whg.minigames.framework.party;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+
+import net.whg.utils.WraithLib;
+
+/**
+ * Keeps track of all parties on the server, and which party each player is
+ * part of.
+ */
+public class PartyManager implements Listener {
+    private final Map<UUID, Party> parties = new HashMap<>();
+    private final int maxPartySize;
+
+    /**
+     * Creates a new party manager.
+     *
+     * @param plugin       - The plugin that owns this manager.
+     * @param maxPartySize - The maximum number of players allowed in a party.
+     */
+    public PartyManager(Plugin plugin, int maxPartySize) {
+        this.maxPartySize = Math.max(maxPartySize, 2);
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+    }
+
+    /**
+     * Gets the party the given player is part of.
+     *
+     * @param player - The player.
+     * @return The party, or null if the player is not in a party.
+     */
+    public Party getParty(Player player) {
+        return parties.get(player.getUniqueId());
+    }
+
+    /**
+     * Gets the players that should be moved together with the given player. This
+     * is every member of the player's party, or just the player if they are not in
+     * a party.
+     *
+     * @param player - The player.
+     * @return A list of players, containing at least the given player.
+     */
+    public List<Player> getGroup(Player player) {
+        var party = getParty(player);
+        if (party == null)
+            return Collections.singletonList(player);
+
+        return party.getMembers();
+    }
+
+    /**
+     * Invites a player to the party of the given leader, creating a new party if
+     * the leader is not in one yet.
+     *
+     * @param leader - The player sending the invite.
+     * @param player - The player being invited.
+     * @return The party the player was invited to.
+     * @throws IllegalStateException If the sender is not the leader of their
+     *                               party, or the party is full.
+     */
+    public Party invite(Player leader, Player player) {
+        var party = getParty(leader);
+        if (party == null) {
+            party = new Party(leader);
+            parties.put(leader.getUniqueId(), party);
+        }
+
+        if (!party.isLeader(leader))
+            throw new IllegalStateException("Only the party leader can invite players!");
+
+        if (party.size() >= maxPartySize)
+            throw new IllegalStateException("The party is full!");
+
+        party.invite(player);
+        return party;
+    }
+
+    /**
+     * Accepts an invite to the party led by the given leader. The player leaves
+     * their current party, if any.
+     *
+     * @param player - The player accepting the invite.
+     * @param leader - The leader of the party to join.
+     * @return The party that was joined.
+     * @throws IllegalStateException If the player has not been invited, or the
+     *                               party is full.
+     */
+    public Party accept(Player player, Player leader) {
+        var party = getParty(leader);
+        if (party == null || !party.isInvited(player))
+            throw new IllegalStateException("You have not been invited to that party!");
+
+        if (party.size() >= maxPartySize)
+            throw new IllegalStateException("The party is full!");
+
+        leave(player);
+        party.addMember(player);
+        parties.put(player.getUniqueId(), party);
+
+        for (var member : party.getMembers())
+            WraithLib.log.sendMessage(member, "%s has joined the party.", player.getName());
+
+        return party;
+    }
+
+    /**
+     * Removes the given player from their party. A party left with a single
+     * member is disbanded.
+     *
+     * @param player - The player.
+     */
+    public void leave(Player player) {
+        var party = parties.remove(player.getUniqueId());
+        if (party == null)
+            return;
+
+        party.removeMember(player);
+
+        if (party.size() > 1) {
+            for (var member : party.getMembers())
+                WraithLib.log.sendMessage(member, "%s has left the party.", player.getName());
+
+            return;
+        }
+
+        for (var member : party.getMembers()) {
+            parties.remove(member.getUniqueId());
+            WraithLib.log.sendMessage(member, "Your party has been disbanded.");
+        }
+    }
+
+    /**
+     * Gets the maximum number of players allowed in a party.
+     *
+     * @return The maximum party size.
+     */
+    public int getMaxPartySize() {
+        return maxPartySize;
+    }
+
+    /**
+     * Removes players from their party when they leave the server.
+     *
+     * @param e - The event.
+     */
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent e) {
+        leave(e.getPlayer());
+    }
+}
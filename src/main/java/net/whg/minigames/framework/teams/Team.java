@@ -2,11 +2,10 @@ package net.whg.minigames.framework.teams;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
 
 import net.whg.minigames.framework.AbstractPlayerManager;
-import net.whg.minigames.framework.events.LeaveMinigameEvent;
-import net.whg.utils.WraithLib;
+import net.whg.minigames.framework.logging.FrameworkLogger;
+import net.whg.minigames.framework.logging.LogCategory;
 
 /**
  * A team is a collection of players that are working together towards a common
@@ -14,6 +13,7 @@ import net.whg.utils.WraithLib;
  */
 public abstract class Team extends AbstractPlayerManager {
     private String displayName;
+    private TeamList teamList;
 
     /**
      * Creates a new Team instance.
@@ -28,15 +28,17 @@ public abstract class Team extends AbstractPlayerManager {
      * @param player - The player to add.
      */
     public void addPlayer(Player player) {
-        if (getPlayers().contains(player))
+        if (contains(player))
             return;
 
         addPlayerToList(player);
+        if (teamList != null)
+            teamList.onPlayerAdded(this, player);
 
         var event = new TeamJoinEvent(player, this);
         Bukkit.getPluginManager().callEvent(event);
 
-        WraithLib.log.logInfo("%s has joined the team %s.", player.getName(), getDisplayName());
+        FrameworkLogger.log.info(LogCategory.TEAM, "%s has joined the team %s.", player.getName(), getDisplayName());
     }
 
     /**
@@ -45,15 +47,17 @@ public abstract class Team extends AbstractPlayerManager {
      * @param player - The player to remove.
      */
     public void removePlayer(Player player) {
-        if (!getPlayers().contains(player))
+        if (!contains(player))
             return;
 
         removePlayerFromList(player);
+        if (teamList != null)
+            teamList.onPlayerRemoved(this, player);
 
         var event = new TeamLeaveEvent(player, this);
         Bukkit.getPluginManager().callEvent(event);
 
-        WraithLib.log.logInfo("%s has left the team %s.", player.getName(), getDisplayName());
+        FrameworkLogger.log.info(LogCategory.TEAM, "%s has left the team %s.", player.getName(), getDisplayName());
     }
 
     /**
@@ -74,10 +78,14 @@ public abstract class Team extends AbstractPlayerManager {
         displayName = name;
     }
 
-    @EventHandler
-    public void onLeaveMinigame(LeaveMinigameEvent e) {
-        var player = e.getPlayer();
-        removePlayer(player);
+    /**
+     * Sets the team list this team belongs to, which is notified whenever a player
+     * joins or leaves this team.
+     * 
+     * @param teamList - The team list, or null.
+     */
+    void setTeamList(TeamList teamList) {
+        this.teamList = teamList;
     }
 
     /**
@@ -0,0 +1,407 @@
+package net.whg.minigames.framework.teams;
+
+import java.util.Random;
+
+/**
+ * Assigns players to teams, balancing both team size and, optionally, team
+ * strength based on a rating for each player. Players in the same group, such
+ * as a party, are kept on the same team whenever a team has room for all of
+ * them.
+ * <p>
+ * Team sizes are always kept within one player of each other, no matter how
+ * the ratings are spread, except for teams whose limit is lower than an even
+ * share. Those teams are filled up to their limit, and the players they cannot
+ * take are shared evenly by the other teams.
+ * <p>
+ * Players, groups, and teams are all referred to by index, and all working
+ * storage is kept in primitive arrays that are reused between calls, so
+ * assigning teams does not create any garbage once the arrays have grown to fit
+ * the largest call. An assigner is not thread safe.
+ */
+public class TeamAssigner {
+    /**
+     * The strategy used to balance team strength.
+     */
+    public enum Strategy {
+        /**
+         * Each group, strongest first, is placed on the team with the lowest total
+         * rating that has room for it.
+         */
+        GREEDY,
+
+        /**
+         * Teams take turns picking the strongest remaining group, with the pick
+         * order reversing after each round.
+         */
+        SNAKE_DRAFT
+    }
+
+    private final Random random = new Random();
+    private int[] unitOf = new int[0];
+    private int[] unitSize = new int[0];
+    private double[] unitRating = new double[0];
+    private int[] unitOrder = new int[0];
+    private int[] unitTeam = new int[0];
+    private int[] teamOf = new int[0];
+    private int[] teamSize = new int[0];
+    private double[] teamRating = new double[0];
+    private int[] teamLimit = new int[0];
+    private int[] teamMinimum = new int[0];
+    private int slack;
+
+    /**
+     * Assigns the given players to teams.
+     *
+     * @param playerCount - The number of players to assign.
+     * @param ratings     - The rating of each player, or null if all players are
+     *                    equally skilled, in which case only team size is
+     *                    balanced. Players with equal ratings are assigned in a
+     *                    random order.
+     * @param groups      - The group index of each player, from 0 to groupCount -
+     *                    1, or -1 for players that are not part of a group. May be
+     *                    null if no players are grouped.
+     * @param groupCount  - The number of groups.
+     * @param teamCount   - The number of teams.
+     * @param limits      - The maximum number of players on each team, or null if
+     *                    teams have no maximum size.
+     * @param strategy    - The strategy to use for balancing team strength.
+     * @return An array containing the team index of each player. This array is
+     *         reused by the next call, and may be longer than the number of
+     *         players.
+     * @throws IllegalArgumentException If there are no teams, or the team limits
+     *                                  do not leave room for all players.
+     */
+    public int[] assign(int playerCount, double[] ratings, int[] groups, int groupCount, int teamCount,
+            int[] limits, Strategy strategy) {
+        if (teamCount <= 0)
+            throw new IllegalArgumentException("Team list cannot be empty!");
+
+        ensureCapacity(playerCount, groupCount + playerCount, teamCount);
+
+        var capacity = 0L;
+        for (var t = 0; t < teamCount; t++) {
+            teamLimit[t] = limits == null ? Integer.MAX_VALUE : limits[t];
+            teamSize[t] = 0;
+            teamRating[t] = 0;
+            capacity += teamLimit[t];
+        }
+
+        if (capacity < playerCount)
+            throw new IllegalArgumentException("There are more players than the maximum team sizes allow!");
+
+        evenTeamSizes(playerCount, teamCount);
+
+        var units = buildUnits(playerCount, ratings, groups, groupCount);
+        shuffleUnits(units);
+        sortUnits(0, units - 1);
+
+        if (strategy == Strategy.SNAKE_DRAFT)
+            assignSnakeDraft(units, teamCount);
+        else
+            assignGreedy(units, teamCount);
+
+        // Groups that did not fit on any single team are split up, one player at a
+        // time, onto whichever team is weakest.
+        for (var i = 0; i < playerCount; i++) {
+            var team = unitTeam[unitOf[i]];
+
+            if (team == -1) {
+                team = findWeakestTeam(teamCount, 1);
+                addPlayers(team, 1, ratings == null ? 0 : ratings[i]);
+            }
+
+            teamOf[i] = team;
+        }
+
+        return teamOf;
+    }
+
+    /**
+     * Narrows the limit of each team to an even share of the players, and sets
+     * the minimum size of each team so that sizes stay within one player of each
+     * other. The share is the smallest size that still leaves room for every
+     * player, starting from the number of players divided by the number of teams,
+     * rounded up. Teams with a lower limit keep it, and must be filled up to it.
+     * Every other team must be filled to at least one less than the share.
+     *
+     * @param playerCount - The number of players.
+     * @param teamCount   - The number of teams.
+     */
+    private void evenTeamSizes(int playerCount, int teamCount) {
+        var share = (playerCount + teamCount - 1) / teamCount;
+
+        while (true) {
+            var capacity = 0L;
+            for (var t = 0; t < teamCount; t++)
+                capacity += Math.min(teamLimit[t], share);
+
+            if (capacity >= playerCount)
+                break;
+
+            share++;
+        }
+
+        slack = playerCount;
+        for (var t = 0; t < teamCount; t++) {
+            teamMinimum[t] = teamLimit[t] < share ? teamLimit[t] : Math.max(share - 1, 0);
+            teamLimit[t] = Math.min(teamLimit[t], share);
+            slack -= teamMinimum[t];
+        }
+    }
+
+    /**
+     * Combines players into units, one per group and one per ungrouped player,
+     * and writes the index of every non-empty unit into the unit order.
+     *
+     * @param playerCount - The number of players.
+     * @param ratings     - The player ratings, or null.
+     * @param groups      - The player groups, or null.
+     * @param groupCount  - The number of groups.
+     * @return The number of non-empty units.
+     */
+    private int buildUnits(int playerCount, double[] ratings, int[] groups, int groupCount) {
+        var unitCount = groupCount + playerCount;
+        for (var u = 0; u < unitCount; u++) {
+            unitSize[u] = 0;
+            unitRating[u] = 0;
+            unitTeam[u] = -1;
+        }
+
+        for (var i = 0; i < playerCount; i++) {
+            var unit = groups != null && groups[i] >= 0 ? groups[i] : groupCount + i;
+            unitOf[i] = unit;
+            unitSize[unit]++;
+            unitRating[unit] += ratings == null ? 0 : ratings[i];
+        }
+
+        var units = 0;
+        for (var u = 0; u < unitCount; u++) {
+            if (unitSize[u] > 0)
+                unitOrder[units++] = u;
+        }
+
+        return units;
+    }
+
+    /**
+     * Places each unit, in order, on the weakest team with room for it.
+     *
+     * @param units     - The number of units.
+     * @param teamCount - The number of teams.
+     */
+    private void assignGreedy(int units, int teamCount) {
+        for (var k = 0; k < units; k++) {
+            var unit = unitOrder[k];
+            var team = findWeakestTeam(teamCount, unitSize[unit]);
+
+            if (team != -1)
+                place(unit, team);
+        }
+    }
+
+    /**
+     * Lets teams take turns picking the first remaining unit that fits, reversing
+     * the pick order after each round.
+     *
+     * @param units     - The number of units.
+     * @param teamCount - The number of teams.
+     */
+    private void assignSnakeDraft(int units, int teamCount) {
+        var next = 0;
+        var team = 0;
+        var direction = 1;
+        var failedPicks = 0;
+
+        while (next < units && failedPicks < teamCount * 2) {
+            var picked = false;
+
+            for (var k = next; k < units; k++) {
+                var unit = unitOrder[k];
+                if (unitTeam[unit] != -1 || !hasRoom(team, unitSize[unit]))
+                    continue;
+
+                place(unit, team);
+                picked = true;
+                break;
+            }
+
+            while (next < units && unitTeam[unitOrder[next]] != -1)
+                next++;
+
+            failedPicks = picked ? 0 : failedPicks + 1;
+
+            team += direction;
+            if (team == teamCount) {
+                team = teamCount - 1;
+                direction = -1;
+            } else if (team < 0) {
+                team = 0;
+                direction = 1;
+            }
+        }
+    }
+
+    /**
+     * Places a unit on a team.
+     *
+     * @param unit - The unit.
+     * @param team - The team.
+     */
+    private void place(int unit, int team) {
+        unitTeam[unit] = team;
+        addPlayers(team, unitSize[unit], unitRating[unit]);
+    }
+
+    /**
+     * Adds players to a team.
+     *
+     * @param team   - The team.
+     * @param count  - The number of players.
+     * @param rating - The total rating of the players.
+     */
+    private void addPlayers(int team, int count, double rating) {
+        slack -= count - Math.min(count, Math.max(teamMinimum[team] - teamSize[team], 0));
+        teamSize[team] += count;
+        teamRating[team] += rating;
+    }
+
+    /**
+     * Checks whether the given number of players can be added to a team. This is
+     * the case if the team has room for them, and enough players are left over
+     * to fill every other team up to its minimum size.
+     *
+     * @param team  - The team.
+     * @param count - The number of players.
+     * @return True if the players can be added to the team.
+     */
+    private boolean hasRoom(int team, int count) {
+        if (teamLimit[team] - teamSize[team] < count)
+            return false;
+
+        return count - Math.min(count, Math.max(teamMinimum[team] - teamSize[team], 0)) <= slack;
+    }
+
+    /**
+     * Finds the team with the lowest total rating that has room for the given
+     * number of players, as decided by {@link #hasRoom(int, int)}. Ties go to the smaller team, and then to the team with
+     * the lower index.
+     *
+     * @param teamCount - The number of teams.
+     * @param size      - The number of players to add.
+     * @return The team index, or -1 if no team has enough room.
+     */
+    private int findWeakestTeam(int teamCount, int size) {
+        var best = -1;
+
+        for (var t = 0; t < teamCount; t++) {
+            if (!hasRoom(t, size))
+                continue;
+
+            if (best == -1 || teamRating[t] < teamRating[best]
+                    || (teamRating[t] == teamRating[best] && teamSize[t] < teamSize[best]))
+                best = t;
+        }
+
+        return best;
+    }
+
+    /**
+     * Randomly shuffles the unit order, so that units which compare as equal end
+     * up in a random order.
+     *
+     * @param units - The number of units.
+     */
+    private void shuffleUnits(int units) {
+        for (var i = units - 1; i > 0; i--) {
+            var j = random.nextInt(i + 1);
+            var temp = unitOrder[i];
+            unitOrder[i] = unitOrder[j];
+            unitOrder[j] = temp;
+        }
+    }
+
+    /**
+     * Sorts the given range of the unit order, strongest units first, and larger
+     * units first when equally strong.
+     *
+     * @param lo - The first index, inclusive.
+     * @param hi - The last index, inclusive.
+     */
+    private void sortUnits(int lo, int hi) {
+        while (lo < hi) {
+            var pivot = unitOrder[(lo + hi) >>> 1];
+            var i = lo;
+            var j = hi;
+
+            while (i <= j) {
+                while (compareUnits(unitOrder[i], pivot) < 0)
+                    i++;
+
+                while (compareUnits(unitOrder[j], pivot) > 0)
+                    j--;
+
+                if (i <= j) {
+                    var temp = unitOrder[i];
+                    unitOrder[i] = unitOrder[j];
+                    unitOrder[j] = temp;
+                    i++;
+                    j--;
+                }
+            }
+
+            // Recurse into the smaller half to bound the stack depth.
+            if (j - lo < hi - i) {
+                sortUnits(lo, j);
+                lo = i;
+            } else {
+                sortUnits(i, hi);
+                hi = j;
+            }
+        }
+    }
+
+    /**
+     * Compares two units for sorting.
+     *
+     * @param a - The first unit.
+     * @param b - The second unit.
+     * @return A negative number if a should come before b, a positive number if b
+     *         should come before a, or 0 if they are equal.
+     */
+    private int compareUnits(int a, int b) {
+        var rating = Double.compare(unitRating[b], unitRating[a]);
+        if (rating != 0)
+            return rating;
+
+        return Integer.compare(unitSize[b], unitSize[a]);
+    }
+
+    /**
+     * Grows the working arrays to fit the given number of players, units, and
+     * teams.
+     *
+     * @param players - The number of players.
+     * @param units   - The number of units.
+     * @param teams   - The number of teams.
+     */
+    private void ensureCapacity(int players, int units, int teams) {
+        if (unitOf.length < players) {
+            unitOf = new int[players];
+            teamOf = new int[players];
+        }
+
+        if (unitSize.length < units) {
+            unitSize = new int[units];
+            unitRating = new double[units];
+            unitOrder = new int[units];
+            unitTeam = new int[units];
+        }
+
+        if (teamSize.length < teams) {
+            teamSize = new int[teams];
+            teamRating = new double[teams];
+            teamLimit = new int[teams];
+            teamMinimum = new int[teams];
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package net.whg.minigames.framework.teams;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.event.HandlerList;
 
+import net.whg.minigames.MinigamesPlugin;
 import net.whg.utils.SafeArrayList;
 
 /**
- * Contains a list of teams that are present within a minigame instance.
+ * Contains a list of teams that are present within a minigame instance. Teams
+ * report their membership changes back to this list, which keeps an index of
+ * the teams each player is part of so that team lookups are constant time.
  */
 public class TeamList {
     private final SafeArrayList<Team> teams = new SafeArrayList<>();
+    private final Map<UUID, List<Team>> playerTeams = new HashMap<>();
 
     /**
      * Creates and registers a new team in this list. This should be done at the
@@ -26,25 +33,76 @@ public class TeamList {
             return;
 
         teams.add(team);
+        team.setTeamList(this);
 
-        var plugin = Bukkit.getPluginManager().getPlugin("HG-Minigames");
-        Bukkit.getPluginManager().registerEvents(team, plugin);
+        for (var player : team.getPlayers())
+            onPlayerAdded(team, player);
+
+        // Teams receive events through the minigame they belong to, rather than
+        // being registered as their own listener.
+        var plugin = (MinigamesPlugin) Bukkit.getPluginManager().getPlugin("HG-Minigames");
+        plugin.getMinigameManager().getEventRouter().hookListenerType(team.getClass());
     }
 
     /**
-     * Disposes and cleans up listeners for all teams currently in this list. This
-     * must be called at the end of each minigame to avoid memory leaks.
+     * Disposes all teams currently in this list, so that they no longer receive
+     * events. This must be called at the end of each minigame to avoid memory
+     * leaks.
      */
     public void dispose() {
         for (var team : teams)
-            HandlerList.unregisterAll(team);
+            team.setTeamList(null);
 
         teams.clear();
+        playerTeams.clear();
+    }
+
+    /**
+     * Removes the given player from every team in this list. Called when the
+     * player leaves the minigame.
+     * 
+     * @param player - The player.
+     */
+    public void removePlayer(Player player) {
+        var list = playerTeams.get(player.getUniqueId());
+        if (list == null)
+            return;
+
+        for (var team : new ArrayList<>(list))
+            team.removePlayer(player);
+    }
+
+    /**
+     * Updates the team index after a player has joined one of the teams in this
+     * list.
+     * 
+     * @param team   - The team.
+     * @param player - The player that joined the team.
+     */
+    void onPlayerAdded(Team team, Player player) {
+        playerTeams.computeIfAbsent(player.getUniqueId(), k -> new ArrayList<>(1)).add(team);
+    }
+
+    /**
+     * Updates the team index after a player has left one of the teams in this
+     * list.
+     * 
+     * @param team   - The team.
+     * @param player - The player that left the team.
+     */
+    void onPlayerRemoved(Team team, Player player) {
+        var list = playerTeams.get(player.getUniqueId());
+        if (list == null)
+            return;
+
+        list.remove(team);
+        if (list.isEmpty())
+            playerTeams.remove(player.getUniqueId());
     }
 
     /**
      * Gets the team that the given player is currently part of. If the player is in
-     * multiple teams at once, only the first team is returned.
+     * multiple teams at once, only the team they joined first is returned.
      * 
      * @param player - The player.
      * @return The team the player is in, or null if the player is not part of a
@@ -52,30 +110,28 @@ public class TeamList {
      * @see #getTeams(Player)
      */
     public Team getTeam(Player player) {
-        for (var team : teams) {
-            if (team.getPlayers().contains(player))
-                return team;
-        }
+        var list = playerTeams.get(player.getUniqueId());
+        if (list == null)
+            return null;
 
-        return null;
+        return list.get(0);
     }
 
     /**
      * Gets a list of all teams that the player is currently part of.
      * 
      * @param player - The player.
-     * @return A list of all teams that the player is currently in.
+     * @return A read-only snapshot of all teams that the player is currently in,
+     *         in the order they were joined. The snapshot does not change as the
+     *         player joins or leaves teams.
      * @see #getTeam(Player)
      */
     public List<Team> getTeams(Player player) {
-        var list = new ArrayList<Team>();
-
-        for (var team : teams) {
-            if (team.getPlayers().contains(player))
-                list.add(team);
-        }
+        var list = playerTeams.get(player.getUniqueId());
+        if (list == null)
+            return Collections.emptyList();
 
-        return list;
+        return List.copyOf(list);
     }
 
     /**
@@ -1,22 +1,28 @@
 package net.whg.minigames.framework.teams;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.ToDoubleFunction;
 
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
+import net.whg.minigames.MinigamesPlugin;
+import net.whg.minigames.framework.party.Party;
+
 /**
  * A collection of utility functions for working with teams.
  */
 public class TeamUtils {
+    private static final TeamAssigner ASSIGNER = new TeamAssigner();
+
     /**
      * Randomly distributes all provided players into one of the provided teams.
      * Teams are attempted to be balanced in size where possible. If the number of
      * players does not cleanly divide into the number of teams, players are placed
      * into the list of teams in order of first to list within the team list.
+     * Members of the same party are placed on the same team where possible.
      * 
      * @param players - The list of players.
      * @param teams   - The list of teams to place the players in.
@@ -31,7 +37,9 @@ public class TeamUtils {
      * Teams are attempted to be balanced in size where possible. If the number of
      * players does not cleanly divide into the number of teams, players are placed
      * into the list of teams in order of first to list within the team list. This
-     * function also allows for an optional maximum player count per team.
+     * function also allows for an optional maximum player count per team. Members
+     * of the same party are placed on the same team where possible, and are only
+     * split up if no team has room for all of them.
      * 
      * @param players - The list of players.
      * @param teams   - The list of teams to place the players in.
@@ -42,6 +50,29 @@ public class TeamUtils {
      */
     public static void shuffleTeams(List<Player> players, List<? extends Team> teams,
             Map<? extends Team, Integer> maxSize) {
+        balanceTeams(players, teams, maxSize, null, TeamAssigner.Strategy.GREEDY);
+    }
+
+    /**
+     * Distributes all provided players into one of the provided teams, balancing
+     * the total rating of each team as well as the team sizes. Members of the same
+     * party are placed on the same team where possible, and are only split up if
+     * no team has room for all of them. Players with equal ratings are placed in a
+     * random order.
+     * 
+     * @param players  - The list of players.
+     * @param teams    - The list of teams to place the players in.
+     * @param maxSize  - A map containing the maximum number of players that can be
+     *                 added to each team. This list must contain one entry per
+     *                 team. Team sizes are kept as even as these limits allow, so
+     *                 if maxSize is null, team sizes are kept within one player
+     *                 of each other.
+     * @param rating   - A function returning the skill rating of a player, or null
+     *                 if only team sizes should be balanced.
+     * @param strategy - The strategy used to balance team ratings.
+     */
+    public static void balanceTeams(List<Player> players, List<? extends Team> teams,
+            Map<? extends Team, Integer> maxSize, ToDoubleFunction<Player> rating, TeamAssigner.Strategy strategy) {
         if (players.isEmpty())
             throw new IllegalArgumentException("Player list cannot be empty!");
 
@@ -62,29 +93,62 @@ public class TeamUtils {
                 throw new IllegalArgumentException("There are more players than the maximum team sizes allow!");
         }
 
-        // It's faster to make a copy of the player list and shuffle it
-        // and distribute those in order.
-        players = new ArrayList<>(players);
-        Collections.shuffle(players);
+        var playerCount = players.size();
+        var teamCount = teams.size();
 
-        // To keep track of how many players we've already added to each team.
-        var count = new HashMap<Team, Integer>();
-        teams.forEach(team -> count.put(team, 0));
+        var limits = new int[teamCount];
+        for (var t = 0; t < teamCount; t++)
+            limits[t] = maxSize == null ? Integer.MAX_VALUE : maxSize.get(teams.get(t));
 
-        int teamIndex = 0;
-        while (!players.isEmpty()) {
-            // Remove from the end to avoid shifting the entire array
-            var player = players.remove(players.size() - 1);
-            Team team;
+        double[] ratings = null;
+        if (rating != null) {
+            ratings = new double[playerCount];
+            for (var i = 0; i < playerCount; i++)
+                ratings[i] = rating.applyAsDouble(players.get(i));
+        }
 
-            do {
-                team = teams.get(teamIndex);
-                teamIndex = (teamIndex + 1) % teams.size();
-            } while (maxSize != null && count.get(team) >= maxSize.get(team));
+        var groups = new int[playerCount];
+        var groupCount = findPartyGroups(players, groups);
+
+        var teamOf = ASSIGNER.assign(playerCount, ratings, groups, groupCount, teamCount, limits, strategy);
+        for (var i = 0; i < playerCount; i++)
+            teams.get(teamOf[i]).addPlayer(players.get(i));
+    }
 
-            team.addPlayer(player);
-            count.put(team, count.get(team) + 1);
+    /**
+     * Finds which of the given players are in the same party, writing a group
+     * index for each player into the given array. Players that are not in a
+     * party are given a group of -1. A party with only one member in the list
+     * still gets its own group, which behaves the same as having no group.
+     * 
+     * @param players - The list of players.
+     * @param groups  - The array to write the group of each player to.
+     * @return The number of groups.
+     */
+    private static int findPartyGroups(List<Player> players, int[] groups) {
+        var plugin = (MinigamesPlugin) Bukkit.getPluginManager().getPlugin("HG-Minigames");
+        var partyManager = plugin.getMinigameManager().getPartyManager();
+
+        var partyGroups = new HashMap<Party, Integer>();
+        var groupCount = 0;
+
+        for (var i = 0; i < players.size(); i++) {
+            var party = partyManager.getParty(players.get(i));
+            if (party == null) {
+                groups[i] = -1;
+                continue;
+            }
+
+            var group = partyGroups.get(party);
+            if (group == null) {
+                group = groupCount++;
+                partyGroups.put(party, group);
+            }
+
+            groups[i] = group;
         }
+
+        return groupCount;
     }
 
     private TeamUtils() {
@@ -0,0 +1,273 @@
+package net.whg.minigames.framework.utilities;
+
+import java.util.Arrays;
+
+/**
+ * A hash map with primitive long keys, using open addressing with linear
+ * probing. This avoids boxing keys and allocating an entry object for each
+ * mapping, which makes it well suited for packed block positions and other
+ * packed IDs on hot paths.
+ * <p>
+ * Entries can be iterated by slot index using {@link #nextSlot(int)},
+ * {@link #keyAt(int)}, and {@link #valueAt(int)}.
+ *
+ * @param <V> - The value type. Null values are not allowed.
+ */
+public class LongObjectMap<V> {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * Creates a new, empty map.
+     */
+    public LongObjectMap() {
+        this(16);
+    }
+
+    /**
+     * Creates a new, empty map with room for at least the given number of entries
+     * before needing to grow.
+     *
+     * @param expectedSize - The expected number of entries.
+     */
+    public LongObjectMap(int expectedSize) {
+        var capacity = Integer.highestOneBit(Math.max((int) (expectedSize / LOAD_FACTOR), 8) - 1) << 1;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Mixes the bits of the given key so that packed coordinates are spread
+     * evenly over the table.
+     *
+     * @param key - The key.
+     * @return The starting slot for the key.
+     */
+    private int slotFor(long key) {
+        var h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Finds the slot containing the given key.
+     *
+     * @param key - The key.
+     * @return The slot index, or -1 if the key is not present.
+     */
+    private int findSlot(long key) {
+        var slot = slotFor(key);
+
+        while (values[slot] != null) {
+            if (keys[slot] == key)
+                return slot;
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gets the value mapped to the given key.
+     *
+     * @param key - The key.
+     * @return The value, or null if the key is not present.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        var slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Checks whether the given key is present in this map.
+     *
+     * @param key - The key.
+     * @return True if the key is present. False otherwise.
+     */
+    public boolean containsKey(long key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Maps the given key to the given value, replacing any existing value.
+     *
+     * @param key   - The key.
+     * @param value - The value. Must not be null.
+     * @return The previous value, or null if the key was not present.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("Value cannot be null!");
+
+        var slot = slotFor(key);
+
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                var previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+
+        if (size > keys.length * LOAD_FACTOR)
+            resize(keys.length << 1);
+
+        return null;
+    }
+
+    /**
+     * Maps the given key to the given value only if the key is not already
+     * present.
+     *
+     * @param key   - The key.
+     * @param value - The value. Must not be null.
+     * @return True if the value was added. False if the key was already present.
+     */
+    public boolean putIfAbsent(long key, V value) {
+        if (containsKey(key))
+            return false;
+
+        put(key, value);
+        return true;
+    }
+
+    /**
+     * Removes the given key from this map.
+     *
+     * @param key - The key.
+     * @return The value that was removed, or null if the key was not present.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        var slot = findSlot(key);
+        if (slot < 0)
+            return null;
+
+        var previous = (V) values[slot];
+        values[slot] = null;
+        size--;
+
+        // Shift any following entries in the same probe chain back into the gap,
+        // so that lookups never stop early at the removed slot.
+        var gap = slot;
+        slot = (slot + 1) & mask;
+
+        while (values[slot] != null) {
+            var home = slotFor(keys[slot]);
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                values[slot] = null;
+                gap = slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return previous;
+    }
+
+    /**
+     * Rebuilds the table with the given capacity.
+     *
+     * @param capacity - The new capacity. Must be a power of two.
+     */
+    private void resize(int capacity) {
+        var oldKeys = keys;
+        var oldValues = values;
+
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+
+        for (var i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == null)
+                continue;
+
+            var slot = slotFor(oldKeys[i]);
+            while (values[slot] != null)
+                slot = (slot + 1) & mask;
+
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Removes all entries from this map, keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Gets the number of entries in this map.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether this map is empty.
+     *
+     * @return True if this map has no entries. False otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Finds the next occupied slot at or after the given slot index. Slot indices
+     * are only stable while the map is not modified.
+     *
+     * @param from - The slot index to start searching from.
+     * @return The next occupied slot index, or -1 if there are no more entries.
+     */
+    public int nextSlot(int from) {
+        for (var slot = Math.max(from, 0); slot < values.length; slot++) {
+            if (values[slot] != null)
+                return slot;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gets the key stored in the given occupied slot.
+     *
+     * @param slot - The slot index.
+     * @return The key.
+     * @see #nextSlot(int)
+     */
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Gets the value stored in the given occupied slot.
+     *
+     * @param slot - The slot index.
+     * @return The value.
+     * @see #nextSlot(int)
+     */
+    @SuppressWarnings("unchecked")
+    public V valueAt(int slot) {
+        return (V) values[slot];
+    }
+}
@@ -0,0 +1,164 @@
+package net.whg.minigames.framework.teams;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class TeamAssignerTest {
+    private static int[] countSizes(int[] teamOf, int playerCount, int teamCount) {
+        var sizes = new int[teamCount];
+        for (var i = 0; i < playerCount; i++)
+            sizes[teamOf[i]]++;
+
+        return sizes;
+    }
+
+    private static double[] sumRatings(int[] teamOf, double[] ratings, int teamCount) {
+        var sums = new double[teamCount];
+        for (var i = 0; i < ratings.length; i++)
+            sums[teamOf[i]] += ratings[i];
+
+        return sums;
+    }
+
+    @Test
+    public void unratedPlayersAreSplitEvenly() {
+        var assigner = new TeamAssigner();
+        var teamOf = assigner.assign(10, null, null, 0, 3, new int[] { 4, 4, 4 }, TeamAssigner.Strategy.GREEDY);
+
+        var sizes = countSizes(teamOf, 10, 3);
+        for (var size : sizes)
+            assertTrue(size == 3 || size == 4);
+    }
+
+    @Test
+    public void groupsStayTogether() {
+        var assigner = new TeamAssigner();
+        var groups = new int[] { 0, 0, 0, -1, -1, -1 };
+        var teamOf = assigner.assign(6, null, groups, 1, 2, new int[] { 3, 3 }, TeamAssigner.Strategy.GREEDY);
+
+        assertEquals(teamOf[0], teamOf[1]);
+        assertEquals(teamOf[0], teamOf[2]);
+        assertEquals(3, countSizes(teamOf, 6, 2)[teamOf[0]]);
+    }
+
+    @Test
+    public void groupTooLargeForAnyTeamIsSplit() {
+        var assigner = new TeamAssigner();
+        var groups = new int[] { 0, 0, 0, 0 };
+        var teamOf = assigner.assign(4, null, groups, 1, 2, new int[] { 2, 2 }, TeamAssigner.Strategy.GREEDY);
+
+        var sizes = countSizes(teamOf, 4, 2);
+        assertEquals(2, sizes[0]);
+        assertEquals(2, sizes[1]);
+    }
+
+    @Test
+    public void greedyBalancesRatingsWithinLimits() {
+        var assigner = new TeamAssigner();
+        var ratings = new double[] { 100, 1, 1, 1 };
+        var teamOf = assigner.assign(4, ratings, null, 0, 2, new int[] { 2, 2 }, TeamAssigner.Strategy.GREEDY);
+
+        var sizes = countSizes(teamOf, 4, 2);
+        assertEquals(2, sizes[0]);
+        assertEquals(2, sizes[1]);
+    }
+
+    @Test
+    public void greedyBalancesRatings() {
+        var assigner = new TeamAssigner();
+        var ratings = new double[] { 10, 9, 8, 7, 6, 5, 4, 3 };
+        var teamOf = assigner.assign(8, ratings, null, 0, 2, new int[] { 4, 4 }, TeamAssigner.Strategy.GREEDY);
+
+        var sums = sumRatings(teamOf, ratings, 2);
+        assertTrue(Math.abs(sums[0] - sums[1]) <= 2);
+    }
+
+    @Test
+    public void snakeDraftAlternatesPicks() {
+        var assigner = new TeamAssigner();
+        var ratings = new double[] { 4, 3, 2, 1 };
+        var teamOf = assigner.assign(4, ratings, null, 0, 2, new int[] { 2, 2 }, TeamAssigner.Strategy.SNAKE_DRAFT);
+
+        assertEquals(teamOf[0], teamOf[3]);
+        assertEquals(teamOf[1], teamOf[2]);
+        assertTrue(teamOf[0] != teamOf[1]);
+    }
+
+    private static void assertEvenSizes(int[] sizes) {
+        var min = Integer.MAX_VALUE;
+        var max = Integer.MIN_VALUE;
+        for (var size : sizes) {
+            min = Math.min(min, size);
+            max = Math.max(max, size);
+        }
+
+        assertTrue(max - min <= 1, () -> "Team sizes are uneven: " + Arrays.toString(sizes));
+    }
+
+    @Test
+    public void strongPlayerDoesNotUnbalanceTeamSizes() {
+        var assigner = new TeamAssigner();
+        var ratings = new double[] { 1000, 1, 1, 1, 1, 1, 1 };
+
+        for (var strategy : TeamAssigner.Strategy.values()) {
+            var teamOf = assigner.assign(7, ratings, null, 0, 3, null, strategy);
+            assertEvenSizes(countSizes(teamOf, 7, 3));
+        }
+    }
+
+    @Test
+    public void unevenPartiesKeepTeamSizesEven() {
+        var assigner = new TeamAssigner();
+        var ratings = new double[] { 50, 40, 30, 20, 10, 5, 4, 3, 100, 2 };
+        var groups = new int[] { 0, 0, 0, 1, 1, -1, -1, -1, -1, -1 };
+
+        for (var strategy : TeamAssigner.Strategy.values()) {
+            for (var teamCount = 2; teamCount <= 4; teamCount++) {
+                var teamOf = assigner.assign(10, ratings, groups, 2, teamCount, null, strategy);
+                assertEvenSizes(countSizes(teamOf, 10, teamCount));
+            }
+        }
+    }
+
+    @Test
+    public void teamsWithLowLimitsAreFilled() {
+        var assigner = new TeamAssigner();
+        var ratings = new double[] { 1000, 1, 1, 1, 1, 1, 1 };
+        var limits = new int[] { 1, 10, 10 };
+        var teamOf = assigner.assign(7, ratings, null, 0, 3, limits, TeamAssigner.Strategy.GREEDY);
+
+        var sizes = countSizes(teamOf, 7, 3);
+        assertEquals(1, sizes[0]);
+        assertEquals(3, sizes[1]);
+        assertEquals(3, sizes[2]);
+    }
+
+    @Test
+    public void tooManyPlayersThrows() {
+        var assigner = new TeamAssigner();
+        assertThrows(IllegalArgumentException.class,
+                () -> assigner.assign(5, null, null, 0, 2, new int[] { 2, 2 }, TeamAssigner.Strategy.GREEDY));
+    }
+
+    @Test
+    public void noTeamsThrows() {
+        var assigner = new TeamAssigner();
+        assertThrows(IllegalArgumentException.class,
+                () -> assigner.assign(1, null, null, 0, 0, new int[0], TeamAssigner.Strategy.GREEDY));
+    }
+
+    @Test
+    public void resultArrayIsReused() {
+        var assigner = new TeamAssigner();
+        var first = assigner.assign(8, null, null, 0, 2, null, TeamAssigner.Strategy.GREEDY);
+        var second = assigner.assign(6, null, null, 0, 3, null, TeamAssigner.Strategy.GREEDY);
+
+        assertSame(first, second);
+    }
+}